@@ -0,0 +1,51 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sudoku.game.solver.BacktrackSolver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The plain column-major BacktrackSolver.solve. Kept apart from SolverBenchmark because it does not finish
+ * the 16x16 corpus in reasonable time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BacktrackBenchmark {
+    @Param({"EASY", "HARD"})
+    public Corpus corpus;
+
+    private int[][][] puzzles;
+
+    @Setup
+    public void setUp() {
+        puzzles = new int[corpus.size()][][];
+        for (int index = 0; index < puzzles.length; index++) {
+            puzzles[index] = corpus.board(index);
+        }
+    }
+
+    @Benchmark
+    public int backtrack() {
+        int solved = 0;
+        for (int[][] puzzle : puzzles) {
+            if (BacktrackSolver.solve(new int[puzzle.length][puzzle.length], puzzle, puzzle.length))
+                solved++;
+        }
+        return solved;
+    }
+}
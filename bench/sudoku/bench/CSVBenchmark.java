@@ -0,0 +1,64 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sudoku.controller.csvIO.CSVInput;
+import sudoku.controller.csvIO.CSVOutput;
+import sudoku.game.SudokuGame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of one board through CSVOutput.saveCSV and CSVInput.loadCSV on a temporary file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CSVBenchmark {
+    @Param({"HARD", "SIXTEEN"})
+    public Corpus corpus;
+
+    private SudokuGame game;
+    private File loadFile;
+    private File saveFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        game = new SudokuGame(corpus.board(0));
+        loadFile = File.createTempFile("sudoku-load", ".csv");
+        saveFile = File.createTempFile("sudoku-save", ".csv");
+        Files.write(loadFile.toPath(), game.toCSV().getBytes());
+    }
+
+    @TearDown
+    public void tearDown() {
+        loadFile.delete();
+        saveFile.delete();
+    }
+
+    @Benchmark
+    public int[][] load() throws IOException {
+        return CSVInput.loadCSV(loadFile);
+    }
+
+    @Benchmark
+    public void save() {
+        CSVOutput.saveCSV(game, saveFile);
+    }
+}
@@ -0,0 +1,59 @@
+package sudoku.bench;
+
+/**
+ * Fixed puzzle corpora, so results stay comparable between runs.
+ * One puzzle per string, row by row, '.' for an empty cell and 1-9, A-G for the values 1..16.
+ */
+public enum Corpus {
+    EASY(
+            "2....3..9.9....5.3.7...51241.72..4.....3.76918..5..7..98...23....163..45.5497....",
+            ".7.328..5..3...2.7.825..3.4.39.5..4....9.2..67164...2.1....96.3.9726.4....8.3....",
+            "47.1..9.6..2..74156.1485.3.38..7.....5.2.8.61..4........3..96.8.....4.9.149.26...",
+            "3..1.6.72..6587.915.1..364.95463.1...2.8......6..7....8173.42..4....873..........",
+            "...327..9...84.6....3.6154..2473....19.6...233.8...4.6..25....8835..9.6.7...8..1.",
+            "693..817.......4..1..56....2.6..5..79....62...5.71.8964.8.7.5.956...9..873..5.6..",
+            "93...627...7...1...2.17.8..19.4..72.2...136.5368.2..917.9.81..2..23.7.4..........",
+            "..5819.2..864...7..4........279..8539..7.5.46.34..6917..........51.9276....1.8..5"),
+    HARD(
+            "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..",
+            "..............3.85..1.2.......5.7.....4...1...9.......5......73..2.1........4...9",
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+            "52...6.........7.13...........4..8..6......5...........418.........3..2...87....."),
+    SIXTEEN(
+            "AG.5..F964.D2.8C.23.5...8.B..7....89..4D15.EA...CDEF6..B279G..45...3...........8.69EG.13FC.7...A.."
+                    + "AD..C85..3.6G9.5.GB6D..8E.C2..E3...F6.79..GCDB.F.73.2.C..85..E58...A..E6213..F..6.4..E....8.."
+                    + "..1...5...E.4..A..E.6A1.2G.7C.8.....8C...A..2.D.6F47.EGB6.3...1C.",
+            "E.92..3AC..D.....346.EFG.8..2.9C78A....C25E..4DGCD...8..1...6.B...3A.5..B...D...9.G.2....A..8.C.."
+                    + "F8E917.D2C.G..A..C7..A.3.98.2.14..C8..3.9D..F.6B...A2C1.48.5D...G.....75.23.B8...68..D..EB..9"
+                    + "2.G.2...894D3...6.8.7.GD12...E9.3.36594.BF8..2.GADF...3A6.9.......",
+            "...DE.CF..2..GA.1......8.D..7....9.B34..1.C....F..FG279A3...1.8D..138.45.6AB..D.D.E..2.7.48..A.6"
+                    + "..76.BE9..G.385185G91..6E37D.2..B42..D..G.69.C.AE.679F2...........C.A.1.F.4...3..35.......E.9"
+                    + "D.4G1.2.85..E9F.3......G.F2C.B7...9......B18GD2E.4.FC.56.7.4A.38.G2",
+            ".2..A..9D7...F..34.7...G..25.DC1.9AC347D...F..2.D.FG...C34..7...1....G..A..9C68DE....1..6..C245."
+                    + "4.G6....21.D.A7..C..2D6A.5.E13.9.1..7FB...92D..A26..D81.5...4...G.4.9C......57..FD9...G6.C4."
+                    + "E1..5F31.7C.B.......98.B....G...AC4F..C.852BF.D.9E..67..G9A.C284...3");
+
+    private final String[] puzzles;
+
+    Corpus(String... puzzles) {
+        this.puzzles = puzzles;
+    }
+
+    public int size() {
+        return puzzles.length;
+    }
+
+    /**
+     * @return a fresh board of the puzzle at index, safe to be solved in place
+     */
+    public int[][] board(int index) {
+        String puzzle = puzzles[index];
+        int size = (int) Math.sqrt(puzzle.length());
+        int[][] board = new int[size][size];
+        for (int cell = 0; cell < puzzle.length(); cell++) {
+            char c = puzzle.charAt(cell);
+            board[cell / size][cell % size] = c == '.' ? 0 : Character.digit(c, 36);
+        }
+        return board;
+    }
+}
@@ -0,0 +1,69 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sudoku.game.generator.InitialStateGenerator;
+import sudoku.game.generator.PuzzleGenerator;
+import sudoku.game.solver.Grade;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puzzle generation by share of entries kept and by the grades offered by the Controller. Each path has its
+ * own state, so the parameters of one are not multiplied with the other.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+    @State(Scope.Thread)
+    public static class ByShare {
+        // share of all cells kept as entries
+        @Param({"0.5", "0.35", "0.1"})
+        public double difficulty;
+
+        @Param({"9"})
+        public int size;
+    }
+
+    @State(Scope.Thread)
+    public static class ByGrade {
+        @Param({"EASY", "MEDIUM", "HARD", "EXPERT"})
+        public Grade grade;
+
+        // a 16x16 puzzle takes seconds at MEDIUM and above
+        @Param({"9", "16"})
+        public int size;
+
+        private PuzzleGenerator generator;
+        private int[][] board;
+
+        @Setup
+        public void setUp() {
+            generator = new PuzzleGenerator(size, new SplittableRandom(42));
+            board = new int[size][size];
+        }
+    }
+
+    @Benchmark
+    public int[][] generate(ByShare state) {
+        return InitialStateGenerator.generateInitialState(state.difficulty, state.size);
+    }
+
+    @Benchmark
+    public Grade generateGraded(ByGrade state) {
+        return state.generator.generate(state.grade, state.board);
+    }
+}
@@ -0,0 +1,80 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sudoku.game.solver.BacktrackSolver;
+import sudoku.game.solver.DancingLinksSolver;
+import sudoku.game.solver.LogicSolver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves every puzzle of a corpus once per invocation, so the score is the time for the whole corpus.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+    @Param({"EASY", "HARD", "SIXTEEN"})
+    public Corpus corpus;
+
+    private int[][][] puzzles;
+
+    @Setup
+    public void setUp() {
+        puzzles = new int[corpus.size()][][];
+        for (int index = 0; index < puzzles.length; index++) {
+            puzzles[index] = corpus.board(index);
+        }
+    }
+
+    private int[][] copy(int[][] board) {
+        int[][] copy = new int[board.length][];
+        for (int row = 0; row < board.length; row++) {
+            copy[row] = board[row].clone();
+        }
+        return copy;
+    }
+
+    @Benchmark
+    public int mostConstrained() {
+        int solved = 0;
+        for (int[][] puzzle : puzzles) {
+            if (BacktrackSolver.solveMostConstrained(new int[puzzle.length][puzzle.length], puzzle, puzzle.length))
+                solved++;
+        }
+        return solved;
+    }
+
+    @Benchmark
+    public int logic() {
+        int solved = 0;
+        for (int[][] puzzle : puzzles) {
+            if (LogicSolver.solve(copy(puzzle), puzzle.length))
+                solved++;
+        }
+        return solved;
+    }
+
+    @Benchmark
+    public int dancingLinks() {
+        int solved = 0;
+        for (int[][] puzzle : puzzles) {
+            if (DancingLinksSolver.solve(copy(puzzle), puzzle.length))
+                solved++;
+        }
+        return solved;
+    }
+}
@@ -0,0 +1,36 @@
+package sudoku.batch;
+
+import sudoku.controller.csvIO.PuzzleArchive;
+import sudoku.controller.csvIO.PuzzleArchiveWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Converts puzzle CSV files, e.g. assets/csv/SudokuMatrix*.csv, into one binary puzzle archive.
+ * Every CSV file may hold any number of puzzles, they are archived in the order given.
+ * <p>
+ * Usage: ArchiveConverter archive file.csv...
+ */
+public class ArchiveConverter {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ArchiveConverter archive file.csv...");
+            System.exit(2);
+        }
+        Path archive = Paths.get(args[0]);
+        long tic = System.nanoTime();
+        try (PuzzleArchiveWriter writer = new PuzzleArchiveWriter(archive)) {
+            for (int index = 1; index < args.length; index++) {
+                long written = writer.writeCSV(new File(args[index]));
+                System.err.println(args[index] + ": " + written + " puzzles");
+            }
+        }
+        try (PuzzleArchive puzzles = PuzzleArchive.open(archive)) {
+            System.err.printf("%s: %d puzzles, %d bytes in %.3f s%n", archive, puzzles.getCount(),
+                    archive.toFile().length(), (System.nanoTime() - tic) / 1e9);
+        }
+    }
+}
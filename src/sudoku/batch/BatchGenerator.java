@@ -0,0 +1,124 @@
+package sudoku.batch;
+
+import sudoku.game.generator.PuzzleDeriver;
+import sudoku.game.generator.PuzzleGenerator;
+import sudoku.game.solver.Grade;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless puzzle generation, e.g. to build a corpus for {@link BatchSolver} or the benchmarks.
+ * Every thread runs its own {@link PuzzleGenerator}, seeded from one root seed, and the puzzles are written to
+ * stdout as they are done, one per line or as CSV grids. With one thread and a seed the output is reproducible.
+ * <p>
+ * Puzzles are pruned to the share -d of entries, or with -g to a grade of the {@link sudoku.game.solver.DifficultyRater}.
+ * With -derive, only the given number of seed puzzles is generated, and all others are derived from them by a
+ * {@link PuzzleDeriver}, which is orders of magnitude faster. Every thread derives from seeds of its own, so the
+ * seeds are split over the threads and at most one thread per seed is used.
+ * <p>
+ * Usage: BatchGenerator [-n count] [-d difficulty | -g easy|medium|hard|expert] [-derive seeds] [-s size]
+ * [-t threads] [-seed seed] [-f csv|line]
+ */
+public class BatchGenerator {
+    private static final int[][] END = new int[0][];
+
+    public static void main(String[] args) throws Exception {
+        int count = 1000;
+        double difficulty = 0.35;
+        Grade grade = null;
+        int seeds = 0;
+        int size = 9;
+        int threads = Runtime.getRuntime().availableProcessors();
+        SplittableRandom root = new SplittableRandom();
+        BatchSolver.Format format = BatchSolver.Format.LINE;
+        for (int index = 0; index < args.length; index++) {
+            switch (args[index]) {
+                case "-n":
+                    count = Integer.parseInt(args[++index]);
+                    break;
+                case "-d":
+                    difficulty = Double.parseDouble(args[++index]);
+                    break;
+                case "-g":
+                    grade = Grade.valueOf(args[++index].toUpperCase());
+                    break;
+                case "-derive":
+                    seeds = Integer.parseInt(args[++index]);
+                    break;
+                case "-s":
+                    size = Integer.parseInt(args[++index]);
+                    break;
+                case "-t":
+                    threads = Integer.parseInt(args[++index]);
+                    break;
+                case "-seed":
+                    root = new SplittableRandom(Long.parseLong(args[++index]));
+                    break;
+                case "-f":
+                    format = BatchSolver.Format.valueOf(args[++index].toUpperCase());
+                    break;
+                default:
+                    System.err.println("unknown option " + args[index]);
+                    System.exit(2);
+            }
+        }
+
+        if (seeds > 0) {
+            threads = Math.min(threads, seeds);
+        }
+        BlockingQueue<int[][]> done = new ArrayBlockingQueue<>(threads * 4);
+        AtomicInteger remaining = new AtomicInteger(count);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            PuzzleGenerator generator = new PuzzleGenerator(size, root.split());
+            PuzzleDeriver deriver = new PuzzleDeriver(size, root.split());
+            int threadSeeds = seeds / threads + (thread < seeds % threads ? 1 : 0);
+            double share = difficulty;
+            Grade target = grade;
+            executor.execute(() -> {
+                try {
+                    try {
+                        while (remaining.getAndDecrement() > 0) {
+                            if (threadSeeds > 0 && deriver.getSeedCount() == threadSeeds) {
+                                done.put(deriver.derive());
+                                continue;
+                            }
+                            int[][] puzzle = target != null ? generator.generate(target) : generator.generate(share);
+                            if (threadSeeds > 0) {
+                                deriver.addSeed(puzzle);
+                            }
+                            done.put(puzzle);
+                        }
+                    } finally {
+                        done.put(END); // also after a failure, or main would wait for this thread forever
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        executor.shutdown();
+
+        BatchSolver.Sink out = format.sink(System.out);
+        long start = System.nanoTime();
+        int written = 0;
+        for (int finished = 0; finished < threads; ) {
+            int[][] puzzle = done.take();
+            if (puzzle == END) {
+                finished++;
+            } else {
+                out.write(puzzle, true);
+                written++;
+            }
+        }
+        out.flush();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d puzzles of size %d in %.3f s, %.1f puzzles/s, %d threads%n",
+                written, size, seconds, written / seconds, threads);
+    }
+}
@@ -0,0 +1,333 @@
+package sudoku.batch;
+
+import sudoku.controller.csvIO.CSVPuzzleReader;
+import sudoku.controller.csvIO.LinePuzzleReader;
+import sudoku.controller.csvIO.LinePuzzleWriter;
+import sudoku.controller.csvIO.PuzzleReader;
+import sudoku.game.solver.BacktrackSolver;
+import sudoku.game.solver.DancingLinksSolver;
+import sudoku.game.solver.LogicSolver;
+import sudoku.game.solver.ParallelSolver;
+import sudoku.game.solver.SolverMetrics;
+import sudoku.game.solver.SolverStats;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless batch solving, no JavaFX involved.
+ * Reads puzzles from the given files (or stdin if there are none, or for "-"), solves them on a fixed thread pool
+ * and writes the solutions to stdout in input order. Puzzles without solution are written unchanged after a
+ * "# no solution" line, so the output can be read again. Throughput and latency percentiles go to stderr at the end.
+ * Input and output are either ';'-separated CSV grids or one puzzle per line (81 characters for 9x9), the format of
+ * public puzzle collections.
+ * <p>
+ * With -v the search nodes, backtracks, techniques and time of every puzzle are written as a comment before it,
+ * and -m writes counters and histograms over all puzzles to a file in the Prometheus text format.
+ * <p>
+ * Usage: BatchSolver [-t threads] [-a dlx|logic|backtrack|parallel] [-f csv|line] [-v] [-m metrics] [file...]
+ */
+public class BatchSolver {
+    public enum Algorithm {
+        DLX,
+        LOGIC,
+        BACKTRACK,
+        PARALLEL;
+
+        /**
+         * Solve board in place, adding the work done to stats. The parallel solver only reports its time.
+         */
+        boolean solve(int[][] board, SolverStats stats) {
+            switch (this) {
+                case LOGIC:
+                    return LogicSolver.solve(board, board.length, stats);
+                case BACKTRACK:
+                    return BacktrackSolver.solveMostConstrained(board, board, board.length, stats);
+                case PARALLEL:
+                    return ParallelSolver.solve(board, board.length);
+                default:
+                    return DancingLinksSolver.solve(board, board.length, stats);
+            }
+        }
+    }
+
+    public enum Format {
+        CSV,
+        LINE;
+
+        PuzzleReader open(String file) throws IOException {
+            boolean stdin = file.equals("-");
+            if (this == LINE) {
+                return stdin
+                        ? new LinePuzzleReader(Channels.newChannel(System.in))
+                        : LinePuzzleReader.open(Paths.get(file));
+            }
+            return new CSVPuzzleReader(stdin
+                    ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                    : Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8));
+        }
+
+        Sink sink(OutputStream out) {
+            if (this == LINE) {
+                LinePuzzleWriter writer = new LinePuzzleWriter(Channels.newChannel(out));
+                return new Sink() {
+                    @Override
+                    public void write(int[][] board, boolean solved) throws IOException {
+                        if (!solved) {
+                            writer.writeComment("no solution");
+                        }
+                        writer.write(board);
+                    }
+
+                    @Override
+                    public void comment(String text) throws IOException {
+                        writer.writeComment(text);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        writer.flush();
+                    }
+                };
+            }
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+            return new Sink() {
+                @Override
+                public void write(int[][] board, boolean solved) throws IOException {
+                    writeCSV(board, solved, writer);
+                }
+
+                @Override
+                public void comment(String text) throws IOException {
+                    writer.write("# " + text + "\n");
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    writer.flush();
+                }
+            };
+        }
+    }
+
+    /**
+     * Destination of the solved puzzles, in input order.
+     */
+    public interface Sink extends Flushable {
+        void write(int[][] board, boolean solved) throws IOException;
+
+        /**
+         * Write a line that readers skip.
+         */
+        void comment(String text) throws IOException;
+    }
+
+    /**
+     * Outcome of one puzzle, solved in place if solvable.
+     */
+    private static final class Result {
+        private final int[][] board;
+        private final boolean solved;
+        private final long nanos;
+        private final SolverStats stats;
+
+        private Result(int[][] board, boolean solved, long nanos, SolverStats stats) {
+            this.board = board;
+            this.solved = solved;
+            this.nanos = nanos;
+            this.stats = stats;
+        }
+    }
+
+    private static final Future<Result> END = new CompletableFuture<>();
+
+    private final Algorithm algorithm;
+    private final int threads;
+    private final SolverMetrics metrics = new SolverMetrics();
+
+    // write the stats of every puzzle as a comment before it
+    private boolean verbose;
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private int unsolved;
+
+    public BatchSolver(Algorithm algorithm, int threads) {
+        this.algorithm = algorithm;
+        this.threads = threads;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    public SolverMetrics getMetrics() {
+        return metrics;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Algorithm algorithm = Algorithm.DLX;
+        Format format = Format.CSV;
+        boolean verbose = false;
+        String metricsFile = null;
+        List<String> files = new ArrayList<>();
+        for (int index = 0; index < args.length; index++) {
+            switch (args[index]) {
+                case "-t":
+                    threads = Integer.parseInt(args[++index]);
+                    break;
+                case "-a":
+                    algorithm = Algorithm.valueOf(args[++index].toUpperCase());
+                    break;
+                case "-f":
+                    format = Format.valueOf(args[++index].toUpperCase());
+                    break;
+                case "-v":
+                    verbose = true;
+                    break;
+                case "-m":
+                    metricsFile = args[++index];
+                    break;
+                default:
+                    files.add(args[index]);
+            }
+        }
+        if (files.isEmpty()) {
+            files.add("-");
+        }
+        BatchSolver batchSolver = new BatchSolver(algorithm, threads);
+        batchSolver.setVerbose(verbose);
+        Sink out = format.sink(System.out);
+        long start = System.nanoTime();
+        for (String file : files) {
+            try (PuzzleReader in = format.open(file)) {
+                batchSolver.run(in, out);
+            } catch (IOException e) {
+                System.err.println(file + ": " + e);
+            }
+        }
+        out.flush();
+        System.err.print(batchSolver.report(System.nanoTime() - start));
+        if (metricsFile != null) {
+            Files.write(Paths.get(metricsFile), batchSolver.getMetrics().export().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Solve all puzzles of in and write them to out in input order.
+     * At most a few puzzles per thread are in flight, so memory stays bounded for arbitrarily long input.
+     */
+    public void run(PuzzleReader in, Sink out) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        BlockingQueue<Future<Result>> pending = new ArrayBlockingQueue<>(threads * 4);
+        IOException[] writeError = new IOException[1];
+        Thread writer = new Thread(() -> {
+            try {
+                for (Future<Result> future = pending.take(); future != END; future = pending.take()) {
+                    // after an error keep draining, so the reading side never blocks on a full queue
+                    if (writeError[0] == null) {
+                        try {
+                            write(future.get(), out);
+                        } catch (IOException e) {
+                            writeError[0] = e;
+                        } catch (ExecutionException e) {
+                            writeError[0] = new IOException(e.getCause());
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                writeError[0] = new IOException(e);
+            }
+        }, "batch-writer");
+        writer.start();
+        try {
+            for (int[][] board = in.next(); board != null; board = in.next()) {
+                final int[][] puzzle = board;
+                pending.put(executor.submit(() -> {
+                    long tic = System.nanoTime();
+                    SolverStats stats = new SolverStats();
+                    boolean solved = algorithm.solve(puzzle, stats);
+                    return new Result(puzzle, solved, System.nanoTime() - tic, stats);
+                }));
+            }
+        } finally {
+            pending.put(END);
+            writer.join();
+            executor.shutdown();
+        }
+        if (writeError[0] != null) {
+            throw writeError[0];
+        }
+    }
+
+    private void write(Result result, Sink out) throws IOException {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = result.nanos;
+        if (!result.solved) {
+            unsolved++;
+        }
+        metrics.record(result.stats);
+        if (verbose) {
+            out.comment(result.stats.toString());
+        }
+        out.write(result.board, result.solved);
+    }
+
+    private static void writeCSV(int[][] board, boolean solved, Writer out) throws IOException {
+        if (!solved) {
+            out.write("# no solution\n");
+        }
+        int size = board.length;
+        for (int[] row : board) {
+            for (int col = 0; col < size - 1; col++) {
+                out.write(Integer.toString(row[col]));
+                out.write(';');
+            }
+            out.write(Integer.toString(row[size - 1]));
+            out.write('\n');
+        }
+        out.write('\n');
+    }
+
+    public String report(long wallNanos) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append(String.format("%d puzzles (%d unsolved) in %.3f s, %.1f puzzles/s, %d threads, %s%n",
+                count, unsolved, wallNanos / 1e9, count / (wallNanos / 1e9), threads, algorithm));
+        if (count > 0) {
+            stringBuilder.append(String.format("latency ms: p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f%n",
+                    percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), sorted[count - 1] / 1e6));
+            stringBuilder.append(metrics).append(System.lineSeparator());
+        }
+        return stringBuilder.toString();
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,137 @@
+package sudoku.batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load test for a running {@link sudoku.server.SudokuServer}. Every client thread plays its share of the sessions
+ * one after the other: it creates a game, enters random values with a hint every fourth request, solves the game
+ * and deletes it. Throughput and latency percentiles over all requests go to stderr at the end.
+ * Moves on initial cells are rejected by the server and count as requests like the others.
+ * <p>
+ * Usage: LoadClient [-u url] [-c clients] [-n sessions] [-m moves] [-g grade]
+ */
+public class LoadClient {
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:8080";
+        int clients = 64;
+        int sessions = 1000;
+        int moves = 40;
+        String grade = "medium";
+        for (int index = 0; index < args.length; index++) {
+            switch (args[index]) {
+                case "-u":
+                    url = args[++index];
+                    break;
+                case "-c":
+                    clients = Integer.parseInt(args[++index]);
+                    break;
+                case "-n":
+                    sessions = Integer.parseInt(args[++index]);
+                    break;
+                case "-m":
+                    moves = Integer.parseInt(args[++index]);
+                    break;
+                case "-g":
+                    grade = args[++index];
+                    break;
+                default:
+                    System.err.println("unknown option " + args[index]);
+                    System.exit(2);
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        SplittableRandom root = new SplittableRandom();
+        List<Future<long[]>> results = new ArrayList<>(clients);
+        long start = System.nanoTime();
+        for (int client = 0; client < clients; client++) {
+            int share = sessions / clients + (client < sessions % clients ? 1 : 0);
+            String base = url + "/sessions";
+            String query = "?grade=" + grade;
+            int count = moves;
+            SplittableRandom random = root.split();
+            results.add(executor.submit(() -> play(base, query, share, count, random)));
+        }
+        long[] latencies = new long[0];
+        for (Future<long[]> result : results) {
+            long[] client = result.get();
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + client.length);
+            System.arraycopy(client, 0, latencies, offset, client.length);
+        }
+        long wallNanos = System.nanoTime() - start;
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        System.err.printf("%d requests in %d sessions in %.3f s, %.1f requests/s, %d clients%n",
+                latencies.length, sessions, wallNanos / 1e9, latencies.length / (wallNanos / 1e9), clients);
+        if (latencies.length > 0) {
+            System.err.printf("latency ms: p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f%n",
+                    percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+                    percentile(latencies, 0.999), latencies[latencies.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * @return latency of every request in nanoseconds
+     */
+    private static long[] play(String base, String query, int sessions, int moves, SplittableRandom random)
+            throws IOException {
+        long[] latencies = new long[sessions * (moves + 3)];
+        int count = 0;
+        for (int session = 0; session < sessions; session++) {
+            long start = System.nanoTime();
+            String created = request("POST", base + query);
+            latencies[count++] = System.nanoTime() - start;
+            int from = created.indexOf("\"id\":\"") + 6;
+            String game = base + "/" + created.substring(from, created.indexOf('"', from));
+            for (int move = 0; move < moves; move++) {
+                start = System.nanoTime();
+                if (move % 4 == 3) {
+                    request("POST", game + "/hint");
+                } else {
+                    request("POST", game + "/move?row=" + random.nextInt(9) + "&col=" + random.nextInt(9)
+                            + "&value=" + random.nextInt(10));
+                }
+                latencies[count++] = System.nanoTime() - start;
+            }
+            start = System.nanoTime();
+            request("POST", game + "/solve");
+            latencies[count++] = System.nanoTime() - start;
+            start = System.nanoTime();
+            request("DELETE", game);
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    private static String request(String method, String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        int status = connection.getResponseCode();
+        StringBuilder response = new StringBuilder();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                for (int c; (c = in.read()) >= 0; ) {
+                    response.append((char) c);
+                }
+            }
+        }
+        return response.toString();
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
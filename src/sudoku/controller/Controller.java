@@ -1,5 +1,9 @@
 package sudoku.controller;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -8,10 +12,16 @@ import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import sudoku.controller.csvIO.CSVFormatException;
 import sudoku.controller.csvIO.CSVInput;
 import sudoku.controller.csvIO.CSVOutput;
+import sudoku.game.SolveTask;
+import sudoku.game.GameEvent;
+import sudoku.game.GameListener;
 import sudoku.game.SudokuGame;
-import sudoku.game.generator.InitialStateGenerator;
+import sudoku.game.generator.PuzzlePool;
+import sudoku.game.solver.Grade;
 
 import java.io.File;
 import java.io.IOException;
@@ -20,17 +30,29 @@ import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Observable;
-import java.util.Observer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import static sudoku.controller.Message.CREATED;
+import static sudoku.game.GameEvent.Type.CREATED;
 
-public class Controller implements Observer {
+public class Controller implements GameListener {
     private static final int SIZE = 9;
-    private static final double EASY = 0.5;
-    private static final double MEDIUM = 0.35;
-    private static final double HARD = 0.1;
-    private double difficulty = EASY;
+    // puzzles are graded by the hardest technique they need, see DifficultyRater
+    private Grade difficulty = Grade.EASY;
+
+    // puzzles for all difficulties are generated in the background, so "New" never waits for the generator
+    private static final int POOL_CAPACITY = 8;
+    private final PuzzlePool puzzlePool = new PuzzlePool(POOL_CAPACITY, 1);
+
+    // backtracking and logic solves run off the FX thread, so the window stays responsive and they can be cancelled
+    private static final long SOLVE_TIMEOUT_MILLIS = 60_000;
+    private final ExecutorService solveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private SolveTask runningSolve;
+    private String idleTitle; // window title while no solve is running
 
     private boolean liveErrorHighlight = false;
     private SudokuGame game;
@@ -38,6 +60,9 @@ public class Controller implements Observer {
     private File initialState;
 
     private final TextField[][] textFields = new TextField[SIZE][SIZE];
+    // what the text fields show, so that a refresh only touches the fields whose content changes
+    private final int[][] shownValues = new int[SIZE][SIZE];
+    private final Background[][] shownBackgrounds = new Background[SIZE][SIZE];
 
     private final Background whiteBG = new Background(new BackgroundFill(Color.WHITE, CornerRadii.EMPTY, Insets.EMPTY));
     private final Background bisqueBG = new Background(new BackgroundFill(Color.BISQUE, CornerRadii.EMPTY, Insets.EMPTY));
@@ -59,6 +84,8 @@ public class Controller implements Observer {
     @FXML
     public MenuItem logicSolveButton;
     @FXML
+    public MenuItem dlxSolveButton;
+    @FXML
     public SplitMenuButton difficultyMenu;
     @FXML
     public Button hintButton;
@@ -69,7 +96,10 @@ public class Controller implements Observer {
 
     public Controller(Stage primaryStage) {
         this.primaryStage = primaryStage;
-        game = new SudokuGame(InitialStateGenerator.generateInitialState(difficulty, SIZE));
+        game = new SudokuGame(puzzlePool.take(difficulty, SIZE));
+        for (Grade grade : Grade.values()) {
+            puzzlePool.prefill(grade, SIZE);
+        }
         try {
             Path gamesaves = Paths.get("gamesaves");
             Files.createDirectories(gamesaves);
@@ -83,12 +113,15 @@ public class Controller implements Observer {
             alert.showAndWait();
         }
         try {
-            defaultSolveMethod = this.getClass().getDeclaredMethod("bTrackSolveGame");
+            defaultSolveMethod = this.getClass().getDeclaredMethod("dlxSolveGame");
         } catch (NoSuchMethodException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Creates the text fields, which are reused for every following game.
+     */
     @FXML
     public void initialize() {
         for (int row = 0; row < game.getSize(); row++) {
@@ -108,10 +141,11 @@ public class Controller implements Observer {
                 });
                 mainGridpane.add(textField, col, row);
                 textFields[row][col] = textField;
+                shownValues[row][col] = -1;
             }
         }
-        game.addObserver(this);
-        this.update(game, CREATED);
+        game.addListener(this);
+        this.onEvent(game, GameEvent.of(CREATED));
     }
 
     private static void limitNumberField(TextField textField) {
@@ -136,115 +170,104 @@ public class Controller implements Observer {
             // ignore because textfield resets text to empty string if input not a number
             if ((int) entered.charAt(0) == 8) { // Backspace
                 textFields[row][col].setBackground(whiteBG);
+                shownValues[row][col] = -1; // the field no longer shows the value of the model
+                shownBackgrounds[row][col] = whiteBG;
             }
         }
     }
 
     /**
-     * This method is called whenever the observed object is changed. An
-     * application calls an <tt>Observable</tt> object's
-     * <code>notifyObservers</code> method to have all the object's
-     * observers notified of the change.
+     * This method is called whenever the game is changed, with an event that tells how.
      *
-     * @param o   the observable object.
-     * @param arg an argument passed to the <code>notifyObservers</code>
+     * @param source the game that changed.
+     * @param event  the change, for moves with the cell that changed.
      */
     @Override
-    public void update(Observable o, Object arg) {
-        if (o instanceof SudokuGame && arg instanceof Message) {
-            SudokuGame game = (SudokuGame) o;
-            Message msg = (Message) arg;
-            Move move = msg.getMove();
-            switch (msg) {
+    public void onEvent(SudokuGame source, GameEvent event) {
+        if (source == game) {
+            switch (event.getType()) {
                 case CREATED:
-                    updateAllTextfields(game);
-                    break;
                 case RESET:
-                    resetTextfields(game);
+                case AUTO_SOLVED:
+                    renderAll();
+                    break;
+                case NOT_SOLVED: // the board is unchanged, startSolve tells why
                     break;
                 case HINT:
                 case VALID_ENTERED:
-                    if (move != null) {
-                        textFields[move.row][move.col].setText(move.toString());
-                        textFields[move.row][move.col].setBackground(whiteBG);
-                    } else updateAllTextfields(game);
-                    break;
                 case INVALID_ENTERED:
-                    if (move != null && liveErrorHighlight) {
-                        textFields[move.row][move.col].setBackground(redBG);
-                    }
-                    break;
-                case AUTO_SOLVED:
-                    updateAllTextfields(game);
+                    if (event.hasCell()) {
+                        renderUnits(event.getRow(), event.getCol());
+                    } else renderAll();
                     break;
                 case WON:
-                    if (move != null) {
-                        textFields[move.row][move.col].setText(move.toString());
-                        textFields[move.row][move.col].setBackground(whiteBG);
-                    } else updateAllTextfields(game);
+                    if (event.hasCell()) {
+                        renderUnits(event.getRow(), event.getCol());
+                    } else renderAll();
                     Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
                     alert.setTitle("Congratulations!");
                     alert.setHeaderText("Puzzle solved.");
                     alert.showAndWait();
                     break;
-                case NONE:
-                    System.err.println("None shouldn't be used!");
-                    break;
                 default:
                     System.err.println("Enums were added without matching them in this switch case!");
             }
         }
     }
 
-    private void resetTextfields(SudokuGame game) {
+    private void renderAll() {
         for (int row = 0; row < game.getSize(); row++) {
             for (int col = 0; col < game.getSize(); col++) {
-                if (!game.isInitial(row, col)) {
-                    textFields[row][col].setBackground(whiteBG);
-                    textFields[row][col].setEditable(true);
-                    textFields[row][col].setText("");
-                }
+                renderCell(row, col);
             }
         }
     }
 
-    private void updateAllTextfields(SudokuGame game) {
-        for (int row = 0; row < game.getSize(); row++) {
-            for (int col = 0; col < game.getSize(); col++) {
-                int value = game.getValue(row, col);
-                textFields[row][col].setText(value == 0 ? "" : value + "");
-                if (game.isInitial(row, col)) {
-                    textFields[row][col].setBackground(bisqueBG);
-                    textFields[row][col].setEditable(false);
-                } else if (liveErrorHighlight) {
-                    if (game.isValid(row, col) || value == 0) {
-                        textFields[row][col].setBackground(whiteBG);
-                        textFields[row][col].setEditable(true);
-                    } else {
-                        textFields[row][col].setBackground(redBG);
-                        textFields[row][col].setEditable(true);
-                    }
-                } else {
-                    textFields[row][col].setBackground(whiteBG);
-                    textFields[row][col].setEditable(true);
-                }
-            }
+    /**
+     * Render the row, column and box of (row, col), the cells whose conflicts a move there can change.
+     */
+    private void renderUnits(int row, int col) {
+        int blockSize = (int) Math.sqrt(game.getSize());
+        int boxRow = row - row % blockSize;
+        int boxCol = col - col % blockSize;
+        for (int index = 0; index < game.getSize(); index++) {
+            renderCell(row, index);
+            renderCell(index, col);
+            renderCell(boxRow + index / blockSize, boxCol + index % blockSize);
+        }
+    }
+
+    private void renderCell(int row, int col) {
+        int value = game.getValue(row, col);
+        boolean initial = game.isInitial(row, col);
+        Background background = initial ? bisqueBG : liveErrorHighlight && game.isConflict(row, col) ? redBG : whiteBG;
+        TextField textField = textFields[row][col];
+        if (shownValues[row][col] != value) {
+            textField.setText(value == 0 ? "" : value + "");
+            shownValues[row][col] = value;
+        }
+        if (shownBackgrounds[row][col] != background) {
+            textField.setBackground(background);
+            textField.setEditable(!initial);
+            shownBackgrounds[row][col] = background;
         }
     }
 
     public void newRandomGame() {
-        newGame(InitialStateGenerator.generateInitialState(difficulty, SIZE));
+        newGame(puzzlePool.take(difficulty, SIZE));
     }
 
     private void newGame(int[][] initial) {
-        game.deleteObserver(this); // delete from old game
+        cancelSolve();
+        game.removeListener(this); // delete from old game
         game = new SudokuGame(initial); // realloc
-        game.addObserver(this); // add to new game
-        initialize();
+        game.addListener(this); // add to new game
+        onEvent(game, GameEvent.of(CREATED)); // the text fields are reused, only the changed ones are redrawn
         CSVOutput.saveCSV(game, initialState);
     }
 
     public void restartGame() {
+        cancelSolve();
         game.reset();
     }
 
@@ -262,13 +285,21 @@ public class Controller implements Observer {
         } catch (NoSuchMethodException e) {
             e.printStackTrace();
         }
-        if (!game.bTrackSolve()) {
+        startSolve(game.bTrackSolveAsync(solveExecutor, Platform::runLater, SOLVE_TIMEOUT_MILLIS));
+    }
+
+    public void dlxSolveGame() {
+        try {
+            defaultSolveMethod = this.getClass().getDeclaredMethod("dlxSolveGame");
+        } catch (NoSuchMethodException e) {
+            e.printStackTrace();
+        }
+        if (!game.dlxSolve()) {
             Alert alert = new Alert(Alert.AlertType.WARNING);
             alert.setTitle("Warning Dialog");
             alert.setHeaderText("Unsolvable Sudoku");
-            alert.setContentText("This Sudoku was not solvable by the used algorithm.");
+            alert.setContentText("This Sudoku has no solution.");
             alert.showAndWait();
-
         }
     }
 
@@ -278,28 +309,80 @@ public class Controller implements Observer {
         } catch (NoSuchMethodException e) {
             e.printStackTrace();
         }
-        game.logicSolve();
+        startSolve(game.logicSolveAsync(solveExecutor, Platform::runLater, SOLVE_TIMEOUT_MILLIS));
+    }
+
+    /**
+     * Show the progress of task in the window title until it is done. A solve still running is cancelled.
+     */
+    private void startSolve(SolveTask task) {
+        if (runningSolve == null || runningSolve.isDone()) {
+            idleTitle = primaryStage.getTitle();
+        }
+        cancelSolve();
+        runningSolve = task;
+        Timeline progress = new Timeline(new KeyFrame(Duration.millis(250),
+                event -> primaryStage.setTitle(idleTitle + " - solving, " + task.getNodes() + " nodes")));
+        progress.setCycleCount(Animation.INDEFINITE);
+        progress.play();
+        task.getResult().whenComplete((solved, error) -> { // on the FX thread, like every delivery
+            progress.stop();
+            if (runningSolve == task) {
+                primaryStage.setTitle(idleTitle);
+            }
+            if (error != null) {
+                error.printStackTrace();
+            } else if (!solved && !task.isCancelled()) {
+                Alert alert = new Alert(Alert.AlertType.WARNING);
+                alert.setTitle("Warning Dialog");
+                alert.setHeaderText("Unsolvable Sudoku");
+                alert.setContentText(task.isTimedOut()
+                        ? "The solver gave up after " + SOLVE_TIMEOUT_MILLIS / 1000 + " seconds."
+                        : "This Sudoku was not solvable by the used algorithm.");
+                alert.showAndWait();
+            }
+        });
+    }
+
+    public void cancelSolve() {
+        if (runningSolve != null && !runningSolve.isDone()) {
+            runningSolve.cancel();
+        }
     }
 
     public void displayHint() {
         game.getHint();
     }
 
+    public void undoMove() {
+        cancelSolve();
+        game.undo();
+    }
+
+    public void redoMove() {
+        cancelSolve();
+        game.redo();
+    }
+
     public void toggleHint() {
         liveErrorHighlight = !liveErrorHighlight;
-        updateAllTextfields(game);
+        renderAll();
+    }
+
+    public void setExpert() {
+        difficulty = Grade.EXPERT;
     }
 
     public void setHard() {
-        difficulty = HARD;
+        difficulty = Grade.HARD;
     }
 
     public void setMedium() {
-        difficulty = MEDIUM;
+        difficulty = Grade.MEDIUM;
     }
 
     public void setEasy() {
-        difficulty = EASY;
+        difficulty = Grade.EASY;
     }
 
     public void loadCSVFile() {
@@ -311,10 +394,21 @@ public class Controller implements Observer {
                 new FileChooser.ExtensionFilter("All Files", "*.*"));
         File selectedFile = fileChooser.showOpenDialog(primaryStage);
         if (selectedFile != null) {
-            int[][] newInitial = CSVInput.loadCSV(selectedFile);
-            if (newInitial != null) {
-                newGame(newInitial);
+            try {
+                newGame(CSVInput.loadCSV(selectedFile));
                 CSVOutput.saveCSV(game, initialState);
+            } catch (CSVFormatException e) {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Error Dialog");
+                alert.setHeaderText("Invalid file content!");
+                alert.setContentText("The file you tried to open contained invalid input!\n" + e.getMessage());
+                alert.showAndWait();
+            } catch (IOException e) {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Error Dialog");
+                alert.setHeaderText("Invalid file!");
+                alert.setContentText("There was an error during opening of the file you requested.");
+                alert.showAndWait();
             }
         }
     }
@@ -0,0 +1,80 @@
+package sudoku.controller.csvIO;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of the binary puzzle archive, shared by {@link PuzzleArchiveWriter} and {@link PuzzleArchive}.
+ * <pre>
+ * header   magic "SDKA", version (short), reserved (short), puzzle count (long), index offset (long),
+ *          section count (int), reserved (int)                                               32 bytes
+ * records  one fixed-size record per puzzle, consecutive puzzles of the same size form a section
+ * index    per section: board size (int), record bytes (int), puzzle count (long), offset of first record (long)
+ * </pre>
+ * A record holds the cells row-major with 4 bits per cell for 9x9 and 5 bits for 16x16 and 25x25, least significant
+ * bits first, 0 for an empty cell. A 9x9 puzzle takes 41 bytes. All numbers are big-endian.
+ */
+final class ArchiveFormat {
+    static final int MAGIC = 0x53444b41; // "SDKA"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int INDEX_ENTRY_BYTES = 24;
+
+    interface CellWriter {
+        void set(int cell, int value);
+    }
+
+    interface CellReader {
+        int get(int cell);
+    }
+
+    private ArchiveFormat() {
+    }
+
+    static int bitsPerCell(int size) {
+        return 32 - Integer.numberOfLeadingZeros(size);
+    }
+
+    static int recordBytes(int size) {
+        return (size * size * bitsPerCell(size) + 7) / 8;
+    }
+
+    /**
+     * Append the record of a board of size to buffer, which needs recordBytes(size) remaining bytes.
+     */
+    static void encode(int size, CellReader board, ByteBuffer buffer) {
+        int bits = bitsPerCell(size);
+        long accumulator = 0;
+        int accumulated = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            accumulator |= (long) board.get(cell) << accumulated;
+            accumulated += bits;
+            while (accumulated >= 8) {
+                buffer.put((byte) accumulator);
+                accumulator >>>= 8;
+                accumulated -= 8;
+            }
+        }
+        if (accumulated > 0) {
+            buffer.put((byte) accumulator);
+        }
+    }
+
+    /**
+     * Decode the record of a board of size starting at position of buffer, without moving the buffer position.
+     */
+    static void decode(int size, ByteBuffer buffer, int position, CellWriter board) {
+        int bits = bitsPerCell(size);
+        int mask = (1 << bits) - 1;
+        long accumulator = 0;
+        int accumulated = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            while (accumulated < bits) {
+                accumulator |= (long) (buffer.get(position++) & 0xFF) << accumulated;
+                accumulated += 8;
+            }
+            board.set(cell, (int) accumulator & mask);
+            accumulator >>>= bits;
+            accumulated -= bits;
+        }
+    }
+}
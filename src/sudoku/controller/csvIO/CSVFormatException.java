@@ -0,0 +1,21 @@
+package sudoku.controller.csvIO;
+
+import java.io.IOException;
+
+/**
+ * Malformed puzzle input, with the line the error was found on.
+ */
+public class CSVFormatException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int lineNumber;
+
+    public CSVFormatException(int lineNumber, String message) {
+        super("line " + lineNumber + ": " + message);
+        this.lineNumber = lineNumber;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+}
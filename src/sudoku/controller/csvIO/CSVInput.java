@@ -1,81 +1,45 @@
 package sudoku.controller.csvIO;
 
-import com.opencsv.CSVReader;
-import javafx.scene.control.Alert;
-
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class CSVInput {
     /**
      * Method to load a .csv file.
      *
-     * @param file CSV file containing all entries, directly mapped to a sudoku field
+     * @param file CSV file containing all entries, directly mapped to a sudoku field. If it holds more than one
+     *             puzzle, the first one is loaded
+     * @throws CSVFormatException if the file content is not a valid puzzle
+     * @throws IOException        if the file cannot be read
      */
-    public static int[][] loadCSV(File file) {
-        try (CSVReader csvReader = new CSVReader(new FileReader(file), ';')) {
-            List<Integer[]> rows = strings2Integers(csvReader.readAll());
-            int size = checkDimensions(rows);
-            if (isValidCSV(size, rows)) {
-                int[][] newBoard = new int[size][size];
-                for (int rowIndex = 0; rowIndex < size; rowIndex++) {
-                    Integer[] row = rows.get(rowIndex);
-                    for (int colIndex = 0; colIndex < row.length; colIndex++) {
-                        newBoard[rowIndex][colIndex] = row[colIndex];
-                    }
-                }
-                return newBoard;
-            }
-        } catch (NumberFormatException e) {
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setTitle("Error Dialog");
-            alert.setHeaderText("Invalid file content!");
-            alert.setContentText("The file you tried to open contained invalid input!");
-            alert.showAndWait();
-        } catch (IOException e) {
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setTitle("Error Dialog");
-            alert.setHeaderText("Invalid file!");
-            alert.setContentText("There was an error during opening of the file you requested.");
-            alert.showAndWait();
-        }
-        return null;
-    }
-
-    private static int checkDimensions(List<Integer[]> rows) {
-        int length = rows.get(0).length;
-        boolean correct = true;
-        for (Integer[] integers : rows) {
-            if (integers.length != length) {
-                correct = false;
+    public static int[][] loadCSV(File file) throws IOException {
+        try (CSVPuzzleReader reader = open(file)) {
+            int[][] board = reader.next();
+            if (board == null) {
+                throw new CSVFormatException(0, "no puzzle in file");
             }
+            return board;
         }
-        if (rows.size() != length) { // not square
-            correct = false;
-        }
-        return correct ? length : 0;
     }
 
-    private static List<Integer[]> strings2Integers(List<String[]> lines) throws NumberFormatException {
-        List<Integer[]> rows = new ArrayList<>(lines.size());
-        for (String[] strings : lines) {
-            Integer[] row = new Integer[strings.length];
-            for (int i = 0; i < strings.length; i++) {
-                row[i] = Integer.parseInt(strings[i]);
+    /**
+     * Load all puzzles of a multi-puzzle file. For large files, read puzzle by puzzle with {@link #open(File)}.
+     */
+    public static List<int[][]> loadAll(File file) throws IOException {
+        List<int[][]> boards = new ArrayList<>();
+        try (CSVPuzzleReader reader = open(file)) {
+            for (int[][] board = reader.next(); board != null; board = reader.next()) {
+                boards.add(board);
             }
-            rows.add(row);
         }
-        return rows;
+        return boards;
     }
 
-    private static boolean isValidCSV(int size, List<Integer[]> rows) {
-        boolean correctLength = rows.stream().allMatch(intArr -> intArr.length == size);
-        boolean correctRange = rows.stream().allMatch(ints ->
-                Arrays.stream(ints).allMatch(i -> (i >= 0) && (i <= size)));
-        return correctLength && correctRange;
+    public static CSVPuzzleReader open(File file) throws IOException {
+        return new CSVPuzzleReader(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8));
     }
 }
@@ -0,0 +1,155 @@
+package sudoku.controller.csvIO;
+
+import sudoku.game.BoardState;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Streaming reader for puzzles in the format of the CSV files written by the game: SIZE lines of SIZE
+ * ';'-separated entries, 0 for an empty cell. A file may hold any number of puzzles; blank lines and lines starting
+ * with '#' between them are skipped. The size of each puzzle is taken from its first line.
+ * <p>
+ * Characters are parsed straight from a buffer into int arrays, without a String per line or per entry, and every
+ * entry is validated as it is read. Only the puzzle being read is held in memory, so files of any length can be
+ * read puzzle by puzzle.
+ */
+public class CSVPuzzleReader implements PuzzleReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_DIGITS = 4;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private int lineNumber;
+
+    // entries of the line read last
+    private int[] entries = new int[32];
+
+    public CSVPuzzleReader(Reader in) {
+        this.in = in;
+    }
+
+    @Override
+    public int[][] next() throws IOException {
+        int count;
+        do {
+            count = readLine();
+        } while (count == 0);
+        if (count < 0) {
+            return null;
+        }
+        int size = count;
+        int blockSize = (int) Math.sqrt(size);
+        if (blockSize * blockSize != size) {
+            throw new CSVFormatException(lineNumber, "size " + size + " is not a perfect square");
+        }
+        if (size > BoardState.MAX_SIZE) {
+            throw new CSVFormatException(lineNumber, "size " + size + " is larger than " + BoardState.MAX_SIZE);
+        }
+        int[][] board = new int[size][];
+        board[0] = toRow(size);
+        for (int row = 1; row < size; row++) {
+            count = readLine();
+            if (count <= 0) {
+                throw new CSVFormatException(lineNumber, "puzzle ends after " + row + " of " + size + " rows");
+            }
+            if (count != size) {
+                throw new CSVFormatException(lineNumber, "expected " + size + " entries, found " + count);
+            }
+            board[row] = toRow(size);
+        }
+        return board;
+    }
+
+    private int[] toRow(int size) throws CSVFormatException {
+        int[] row = new int[size];
+        for (int col = 0; col < size; col++) {
+            if (entries[col] > size) {
+                throw new CSVFormatException(lineNumber, "entry out of range: " + entries[col]);
+            }
+            row[col] = entries[col];
+        }
+        return row;
+    }
+
+    /**
+     * Parse one line into entries.
+     *
+     * @return number of entries, 0 for a blank or comment line, -1 at the end of input
+     */
+    private int readLine() throws IOException {
+        int c = read();
+        if (c < 0) {
+            return -1;
+        }
+        lineNumber++;
+        c = skipSpaces(c);
+        if (c == '#') {
+            while (c != '\n' && c >= 0) {
+                c = read();
+            }
+            return 0;
+        }
+        if (c == '\n' || c < 0) {
+            return 0;
+        }
+        int count = 0;
+        while (true) {
+            int value = 0;
+            int digits = 0;
+            while (c >= '0' && c <= '9') {
+                if (++digits > MAX_DIGITS) {
+                    throw new CSVFormatException(lineNumber, "entry " + (count + 1) + " is too long");
+                }
+                value = value * 10 + c - '0';
+                c = read();
+            }
+            if (digits == 0) {
+                throw new CSVFormatException(lineNumber, c == ';' || c == '\n' || c < 0
+                        ? "entry " + (count + 1) + " is empty"
+                        : "entry " + (count + 1) + " is not a number: '" + (char) c + "'");
+            }
+            if (count == entries.length) {
+                entries = Arrays.copyOf(entries, count * 2);
+            }
+            entries[count++] = value;
+            c = skipSpaces(c);
+            if (c == '\n' || c < 0) {
+                return count;
+            } else if (c == ';') {
+                c = skipSpaces(read());
+            } else {
+                throw new CSVFormatException(lineNumber, "unexpected character after entry " + count + ": '"
+                        + (char) c + "'");
+            }
+        }
+    }
+
+    private int skipSpaces(int c) throws IOException {
+        while (c == ' ' || c == '\t' || c == '\r') {
+            c = read();
+        }
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, BUFFER_SIZE);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
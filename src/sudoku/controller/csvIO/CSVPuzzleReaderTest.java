@@ -0,0 +1,43 @@
+package sudoku.controller.csvIO;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+public class CSVPuzzleReaderTest {
+    private static final String GRID = "1;0;0;0\n0;0;3;0\n0;4;0;0\n0;0;0;2\n";
+
+    private CSVPuzzleReader reader(String content) {
+        return new CSVPuzzleReader(new StringReader(content));
+    }
+
+    @org.junit.Test
+    public void multiplePuzzles() throws IOException {
+        CSVPuzzleReader reader = reader("# first\n" + GRID + "\n\n# second\r\n" + GRID.replace("\n", " \r\n"));
+        int[][] first = reader.next();
+        int[][] second = reader.next();
+        assert reader.next() == null;
+        assert first.length == 4 && first[0][0] == 1 && first[1][2] == 3 && first[3][3] == 2;
+        assert java.util.Arrays.deepEquals(first, second);
+    }
+
+    @org.junit.Test
+    public void malformedInput() throws IOException {
+        String[] malformed = {
+                "1;0;0\n0;0;0\n0;0;0\n",            // not a perfect square
+                "1;0;0;0\n0;0;3\n0;4;0;0\n0;0;0;2\n", // short row
+                "1;0;0;0\n0;0;3;0\n",                // too few rows
+                "1;0;0;0\n0;0;5;0\n0;4;0;0\n0;0;0;2\n", // out of range
+                "1;0;0;0\n0;x;3;0\n0;4;0;0\n0;0;0;2\n", // not a number
+                "1;0;0;0;\n0;0;3;0\n0;4;0;0\n0;0;0;2\n", // empty entry
+                String.join(";", java.util.Collections.nCopies(36, "0")) + "\n", // larger than the masks allow
+        };
+        for (String content : malformed) {
+            try {
+                reader(content).next();
+                assert false : content;
+            } catch (CSVFormatException e) {
+                assert e.getLineNumber() > 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package sudoku.controller.csvIO;
+
+import sudoku.game.BoardState;
+import sudoku.game.PackedBoard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streaming reader for the one-puzzle-per-line exchange format of public puzzle collections: SIZE * SIZE characters
+ * per line, row-major, '.' or '0' for an empty cell, '1'-'9' and then 'A'-'Z' for the values from 10, so a 9x9
+ * puzzle is an 81 character line and a 16x16 puzzle a 256 character line.
+ * The puzzle ends at the first whitespace, ',', ';' or '|', and the rest of the line (ratings, solutions...) is
+ * ignored. Blank lines and lines starting with '#' are skipped.
+ * <p>
+ * Bytes are read from a channel into one reused buffer and decoded without building Strings.
+ */
+public class LinePuzzleReader implements PuzzleReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private int lineNumber;
+
+    // cells of the line read last
+    private byte[] cells = new byte[81];
+    private int size;
+
+    public LinePuzzleReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip(); // empty until the first read
+    }
+
+    public static LinePuzzleReader open(Path path) throws IOException {
+        return new LinePuzzleReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    @Override
+    public int[][] next() throws IOException {
+        if (!readPuzzle()) {
+            return null;
+        }
+        int[][] board = new int[size][size];
+        for (int cell = 0; cell < size * size; cell++) {
+            board[cell / size][cell % size] = cells[cell];
+        }
+        return board;
+    }
+
+    /**
+     * Read the next puzzle into board without allocating, and mark its entries as fixed.
+     *
+     * @return false at the end of input
+     * @throws CSVFormatException if the input is malformed or the puzzle does not have the size of board
+     */
+    public boolean next(PackedBoard board) throws IOException {
+        if (!readPuzzle()) {
+            return false;
+        }
+        if (size != board.getSize()) {
+            throw new CSVFormatException(lineNumber, "expected size " + board.getSize() + ", found " + size);
+        }
+        for (int cell = 0; cell < size * size; cell++) {
+            board.set(cell, cells[cell]);
+        }
+        board.fixEntries();
+        return true;
+    }
+
+    private boolean readPuzzle() throws IOException {
+        int count;
+        do {
+            count = readLine();
+        } while (count == 0);
+        if (count < 0) {
+            return false;
+        }
+        size = (int) Math.sqrt(count);
+        int blockSize = (int) Math.sqrt(size);
+        if (size * size != count || blockSize * blockSize != size) {
+            throw new CSVFormatException(lineNumber, count + " cells are no valid board");
+        }
+        if (size > BoardState.MAX_SIZE) {
+            throw new CSVFormatException(lineNumber, "size " + size + " is larger than " + BoardState.MAX_SIZE);
+        }
+        for (int cell = 0; cell < count; cell++) {
+            if (cells[cell] > size) {
+                throw new CSVFormatException(lineNumber, "cell " + (cell + 1) + " out of range: " + cells[cell]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decode the puzzle of one line into cells.
+     *
+     * @return number of cells, 0 for a blank or comment line, -1 at the end of input
+     */
+    private int readLine() throws IOException {
+        int c = read();
+        if (c < 0) {
+            return -1;
+        }
+        lineNumber++;
+        int count = 0;
+        if (c != '#') {
+            while (c >= 0 && c != '\n' && !isTerminator(c)) {
+                if (count == cells.length) {
+                    cells = Arrays.copyOf(cells, count * 2);
+                }
+                cells[count] = (byte) value(c, count + 1);
+                count++;
+                c = read();
+            }
+        }
+        while (c >= 0 && c != '\n') { // skip the rest of the line
+            c = read();
+        }
+        return count;
+    }
+
+    private static boolean isTerminator(int c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == ',' || c == ';' || c == '|';
+    }
+
+    private int value(int c, int cell) throws CSVFormatException {
+        if (c == '.' || c == '0') {
+            return 0;
+        } else if (c >= '1' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        } else if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 10;
+        }
+        throw new CSVFormatException(lineNumber, "cell " + cell + " is not a value: '" + (char) c + "'");
+    }
+
+    private int read() throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            if (read < 0) {
+                return -1;
+            }
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,83 @@
+package sudoku.controller.csvIO;
+
+import sudoku.game.PackedBoard;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class LinePuzzleReaderTest {
+    private static final String LINE =
+            "020400700700006008083000001002600000050000070000003900900000830300500007001004060";
+
+    private LinePuzzleReader reader(String content) {
+        return new LinePuzzleReader(Channels.newChannel(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @org.junit.Test
+    public void roundTrip() throws IOException {
+        int[][] nine = reader(LINE).next();
+        int[][] sixteen = new int[16][16];
+        for (int cell = 0; cell < 256; cell += 3) {
+            sixteen[cell / 16][cell % 16] = cell % 16 + 1; // values up to 'G'
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (LinePuzzleWriter writer = new LinePuzzleWriter(Channels.newChannel(bytes))) {
+            writer.writeComment("mixed sizes");
+            writer.write(nine);
+            writer.write(PackedBoard.of(sixteen));
+        }
+        String written = new String(bytes.toByteArray(), StandardCharsets.US_ASCII);
+        assert written.startsWith("# mixed sizes\n" + LINE.replace('0', '.') + "\n");
+        assert written.contains("G");
+
+        LinePuzzleReader reader = reader(written);
+        assert Arrays.deepEquals(reader.next(), nine);
+        PackedBoard board = new PackedBoard(16);
+        assert reader.next(board) && Arrays.deepEquals(board.toArray(), sixteen) && board.isFixed(0, 0);
+        assert !reader.next(board) && reader.next() == null;
+    }
+
+    @org.junit.Test
+    public void blanksAndComments() throws IOException {
+        LinePuzzleReader reader = reader("# a comment\n\n" + LINE + " 12 rating\r\n"
+                + LINE.replace('0', '.') + ",solution\n# the end");
+        int[][] zeros = reader.next();
+        int[][] dots = reader.next();
+        assert reader.next() == null;
+        assert zeros[0][0] == 0 && zeros[0][1] == 2 && zeros[8][7] == 6;
+        assert Arrays.deepEquals(zeros, dots);
+    }
+
+    @org.junit.Test
+    public void malformedInput() throws IOException {
+        String[] malformed = {
+                LINE.substring(1) + "\n",                   // 80 cells
+                LINE + "0\n",                                // 82 cells
+                "1.3.\n",                                    // 4 cells: 2 is no perfect square
+                LINE.replace('7', 'x') + "\n",               // not a value
+                LINE.replace('7', 'A') + "\n",               // 10 on a 9x9 board
+                String.join("", Collections.nCopies(36 * 36, ".")) + "\n", // larger than the masks allow
+        };
+        for (String content : malformed) {
+            try {
+                reader("# first line\n" + content).next();
+                assert false : content;
+            } catch (CSVFormatException e) {
+                assert e.getLineNumber() == 2;
+            }
+        }
+        try {
+            reader(LINE).next(new PackedBoard(16));
+            assert false;
+        } catch (CSVFormatException e) {
+            assert e.getLineNumber() == 1;
+        }
+    }
+}
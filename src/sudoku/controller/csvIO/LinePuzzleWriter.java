@@ -0,0 +1,104 @@
+package sudoku.controller.csvIO;
+
+import sudoku.game.PackedBoard;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes puzzles one per line in the format read by {@link LinePuzzleReader}, '.' for empty cells.
+ * Lines are encoded into one reused buffer that is written to the channel whenever it is full.
+ */
+public class LinePuzzleWriter implements Closeable, Flushable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    public LinePuzzleWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public static LinePuzzleWriter create(Path path) throws IOException {
+        return new LinePuzzleWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    public void write(int[][] board) throws IOException {
+        int size = board.length;
+        reserve(size * size + 1);
+        for (int[] row : board) {
+            for (int value : row) {
+                buffer.put(symbol(value));
+            }
+        }
+        buffer.put((byte) '\n');
+    }
+
+    public void write(PackedBoard board) throws IOException {
+        int size = board.getSize();
+        reserve(size * size + 1);
+        for (int cell = 0; cell < size * size; cell++) {
+            buffer.put(symbol(board.get(cell)));
+        }
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Write a line starting with '#', which readers skip.
+     */
+    public void writeComment(String comment) throws IOException {
+        byte[] bytes = ("# " + comment + "\n").getBytes(StandardCharsets.UTF_8);
+        reserve(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte symbol(int value) {
+        if (value == 0) {
+            return '.';
+        } else if (value <= 9) {
+            return (byte) ('0' + value);
+        } else if (value <= 35) {
+            return (byte) ('A' + value - 10);
+        }
+        throw new IllegalArgumentException("entry out of range: " + value);
+    }
+
+    private void reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flushBuffer();
+            if (buffer.capacity() < bytes) {
+                throw new IllegalArgumentException("line of " + bytes + " bytes does not fit the buffer");
+            }
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package sudoku.controller.csvIO;
+
+import sudoku.game.PackedBoard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static sudoku.controller.csvIO.ArchiveFormat.*;
+
+/**
+ * Read-only view of a binary puzzle archive written by {@link PuzzleArchiveWriter}.
+ * The records are memory-mapped, so fetching a puzzle by ordinal is a lookup of its section and a decode of its
+ * record, without reading or parsing anything before it. Archives larger than 2 GB are mapped in chunks of whole
+ * records. Instances are safe for concurrent reads.
+ */
+public class PuzzleArchive implements Closeable {
+    private static final long MAX_CHUNK_BYTES = 1 << 30;
+
+    private final FileChannel channel;
+    private final long count;
+
+    private final int[] sizes;
+    private final int[] recordBytes;
+    private final long[] firstOrdinals; // ordinal of the first puzzle of each section
+    private final int[] recordsPerChunk;
+    private final MappedByteBuffer[][] chunks;
+
+    private PuzzleArchive(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = read(0, HEADER_BYTES);
+        if (header.getInt() != MAGIC) {
+            throw new IOException("not a puzzle archive");
+        }
+        short version = header.getShort();
+        if (version != VERSION) {
+            throw new IOException("unsupported archive version " + version);
+        }
+        header.getShort();
+        count = header.getLong();
+        long indexOffset = header.getLong();
+        int sectionCount = header.getInt();
+
+        sizes = new int[sectionCount];
+        recordBytes = new int[sectionCount];
+        firstOrdinals = new long[sectionCount];
+        recordsPerChunk = new int[sectionCount];
+        chunks = new MappedByteBuffer[sectionCount][];
+        ByteBuffer index = read(indexOffset, sectionCount * INDEX_ENTRY_BYTES);
+        long ordinal = 0;
+        for (int section = 0; section < sectionCount; section++) {
+            sizes[section] = index.getInt();
+            recordBytes[section] = index.getInt();
+            long puzzles = index.getLong();
+            long offset = index.getLong();
+            firstOrdinals[section] = ordinal;
+            ordinal += puzzles;
+            recordsPerChunk[section] = (int) (MAX_CHUNK_BYTES / recordBytes[section]);
+            int chunkCount = (int) ((puzzles + recordsPerChunk[section] - 1) / recordsPerChunk[section]);
+            chunks[section] = new MappedByteBuffer[chunkCount];
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                long first = (long) chunk * recordsPerChunk[section];
+                long records = Math.min(recordsPerChunk[section], puzzles - first);
+                chunks[section][chunk] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        offset + first * recordBytes[section], records * recordBytes[section]);
+            }
+        }
+        if (ordinal != count) {
+            throw new IOException("archive index does not match puzzle count");
+        }
+    }
+
+    public static PuzzleArchive open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new PuzzleArchive(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("archive is truncated");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * @return number of puzzles in the archive
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return board size of the puzzle with the given ordinal
+     */
+    public int getSize(long ordinal) {
+        return sizes[section(ordinal)];
+    }
+
+    public int[][] get(long ordinal) {
+        int section = section(ordinal);
+        int size = sizes[section];
+        int[][] board = new int[size][size];
+        decodeRecord(section, ordinal, (cell, value) -> board[cell / size][cell % size] = value);
+        return board;
+    }
+
+    /**
+     * Decode the puzzle with the given ordinal into board, which must have its size, and mark its entries as fixed.
+     */
+    public void get(long ordinal, PackedBoard board) {
+        int section = section(ordinal);
+        if (board.getSize() != sizes[section]) {
+            throw new IllegalArgumentException("puzzle " + ordinal + " has size " + sizes[section]);
+        }
+        decodeRecord(section, ordinal, board::set);
+        board.fixEntries();
+    }
+
+    private void decodeRecord(int section, long ordinal, CellWriter board) {
+        long record = ordinal - firstOrdinals[section];
+        ByteBuffer chunk = chunks[section][(int) (record / recordsPerChunk[section])];
+        int position = (int) (record % recordsPerChunk[section]) * recordBytes[section];
+        decode(sizes[section], chunk, position, board);
+    }
+
+    private int section(long ordinal) {
+        if (ordinal < 0 || ordinal >= count) {
+            throw new IndexOutOfBoundsException("puzzle " + ordinal + " of " + count);
+        }
+        int low = 0;
+        int high = firstOrdinals.length - 1;
+        while (low < high) { // last section starting at or before ordinal
+            int middle = (low + high + 1) >>> 1;
+            if (firstOrdinals[middle] <= ordinal) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
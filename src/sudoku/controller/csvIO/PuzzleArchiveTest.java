@@ -0,0 +1,95 @@
+package sudoku.controller.csvIO;
+
+import sudoku.game.PackedBoard;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class PuzzleArchiveTest {
+    private Path file;
+
+    @org.junit.Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("puzzles", ".archive");
+    }
+
+    @org.junit.After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @org.junit.Test
+    public void roundTrip() throws IOException {
+        // a section per run of equal sizes, 9x9 twice
+        int[] sizes = {9, 9, 9, 16, 16, 9, 4, 25, 25, 9};
+        SplittableRandom random = new SplittableRandom(11);
+        List<int[][]> puzzles = new ArrayList<>();
+        try (PuzzleArchiveWriter writer = new PuzzleArchiveWriter(file)) {
+            for (int index = 0; index < sizes.length; index++) {
+                int size = sizes[index];
+                int[][] board = new int[size][size];
+                for (int[] row : board) {
+                    for (int col = 0; col < size; col++) {
+                        row[col] = random.nextInt(size + 1);
+                    }
+                }
+                puzzles.add(board);
+                if (index % 2 == 0) {
+                    writer.write(board);
+                } else {
+                    writer.write(PackedBoard.of(board));
+                }
+            }
+            assert writer.getCount() == sizes.length;
+        }
+
+        try (PuzzleArchive archive = PuzzleArchive.open(file)) {
+            assert archive.getCount() == sizes.length;
+            for (int ordinal = sizes.length - 1; ordinal >= 0; ordinal--) { // any order
+                assert archive.getSize(ordinal) == sizes[ordinal];
+                assert Arrays.deepEquals(archive.get(ordinal), puzzles.get(ordinal));
+                PackedBoard board = new PackedBoard(sizes[ordinal]);
+                archive.get(ordinal, board);
+                assert Arrays.deepEquals(board.toArray(), puzzles.get(ordinal));
+            }
+            try {
+                archive.get(3, new PackedBoard(9)); // a 16x16 puzzle
+                assert false;
+            } catch (IllegalArgumentException expected) {
+            }
+            for (long ordinal : new long[]{-1, sizes.length}) {
+                try {
+                    archive.get(ordinal);
+                    assert false : ordinal;
+                } catch (IndexOutOfBoundsException expected) {
+                }
+            }
+        }
+    }
+
+    @org.junit.Test
+    public void emptyArchive() throws IOException {
+        new PuzzleArchiveWriter(file).close();
+        try (PuzzleArchive archive = PuzzleArchive.open(file)) {
+            assert archive.getCount() == 0;
+            archive.get(0);
+            assert false;
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    @org.junit.Test
+    public void notAnArchive() throws IOException {
+        Files.write(file, new byte[64]);
+        try {
+            PuzzleArchive.open(file).close();
+            assert false;
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package sudoku.controller.csvIO;
+
+import sudoku.game.PackedBoard;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static sudoku.controller.csvIO.ArchiveFormat.*;
+
+/**
+ * Writes puzzles to a binary archive, see {@link ArchiveFormat}.
+ * Records are streamed through a buffer; the index and the final header are written on close, so an archive is
+ * only readable after it was closed.
+ */
+public class PuzzleArchiveWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long position = HEADER_BYTES;
+    private long count;
+
+    // size, record bytes, count and offset of every section written so far
+    private final List<long[]> sections = new ArrayList<>();
+    private long[] section;
+
+    public PuzzleArchiveWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        channel.position(HEADER_BYTES);
+    }
+
+    /**
+     * Write all puzzles of a CSV file, which may hold any number of them.
+     *
+     * @return number of puzzles written
+     */
+    public long writeCSV(File file) throws IOException {
+        long written = 0;
+        try (CSVPuzzleReader reader = CSVInput.open(file)) {
+            for (int[][] board = reader.next(); board != null; board = reader.next()) {
+                write(board);
+                written++;
+            }
+        }
+        return written;
+    }
+
+    public void write(int[][] board) throws IOException {
+        int size = board.length;
+        for (int[] row : board) {
+            if (row.length != size) {
+                throw new IllegalArgumentException("board is not square");
+            }
+            for (int value : row) {
+                checkRange(value, size);
+            }
+        }
+        startRecord(size);
+        encode(size, cell -> board[cell / size][cell % size], buffer);
+    }
+
+    public void write(PackedBoard board) throws IOException {
+        int size = board.getSize();
+        for (int cell = 0; cell < size * size; cell++) {
+            checkRange(board.get(cell), size);
+        }
+        startRecord(size);
+        encode(size, board::get, buffer);
+    }
+
+    private static void checkRange(int value, int size) {
+        if (value < 0 || value > size) {
+            throw new IllegalArgumentException("entry out of range: " + value);
+        }
+    }
+
+    private void startRecord(int size) throws IOException {
+        int recordBytes = recordBytes(size);
+        if (section == null || section[0] != size) {
+            section = new long[]{size, recordBytes, 0, position};
+            sections.add(section);
+        }
+        if (buffer.remaining() < recordBytes) {
+            flush();
+        }
+        section[2]++;
+        count++;
+        position += recordBytes;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            long indexOffset = position;
+            for (long[] entry : sections) {
+                if (buffer.remaining() < INDEX_ENTRY_BYTES) {
+                    flush();
+                }
+                buffer.putInt((int) entry[0]).putInt((int) entry[1]).putLong(entry[2]).putLong(entry[3]);
+            }
+            flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+                    .putLong(count).putLong(indexOffset).putInt(sections.size()).putInt(0);
+            header.flip();
+            long offset = 0;
+            while (header.hasRemaining()) {
+                offset += channel.write(header, offset);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package sudoku.controller.csvIO;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Source of puzzles read one at a time, whatever the file format.
+ */
+public interface PuzzleReader extends Closeable {
+    /**
+     * @return the next puzzle, null at the end of input
+     * @throws CSVFormatException if the input is malformed
+     * @throws IOException        if reading fails
+     */
+    int[][] next() throws IOException;
+}
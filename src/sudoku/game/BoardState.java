@@ -0,0 +1,252 @@
+package sudoku.game;
+
+import java.util.Arrays;
+
+/**
+ * Board state with per-row, per-column and per-box occupancy bitmasks.
+ * Bit (value - 1) of a mask is set if the unit contains value. The masks are updated whenever a cell is set or
+ * cleared, so a validity check or a candidate list costs a constant number of bitwise operations instead of a
+ * scan over row, column and box like in {@link SudokuUtil#validPosition}.
+ * Occurrence counts are kept next to the masks, so the state stays consistent if a player enters conflicting
+ * values and later clears one of them again. Together with the counts of filled cells and of duplicate entries
+ * they make {@link #isSolved()} a constant-time check.
+ * The masks are ints, so boards are limited to {@link #MAX_SIZE}.
+ */
+public class BoardState {
+    /**
+     * Largest supported board size, the largest perfect square whose values fit into the bits of an int mask.
+     */
+    public static final int MAX_SIZE = 25;
+
+    private final int size;
+    private final int blockSize;
+    private final int fullMask;
+
+    // row-major, 0 means empty
+    private final int[] cells;
+
+    private final int[] rowMask;
+    private final int[] colMask;
+    private final int[] boxMask;
+
+    // occurrences of a value in a unit, indexed by unit * size + value - 1
+    private final byte[] rowCount;
+    private final byte[] colCount;
+    private final byte[] boxCount;
+
+    private int filled;
+    // occurrences of values beyond the first in their unit, summed over all rows, columns and boxes
+    private int duplicates;
+
+    public BoardState(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("board size " + size + " out of range 1.." + MAX_SIZE);
+        }
+        this.size = size;
+        this.blockSize = (int) Math.sqrt(size);
+        this.fullMask = (1 << size) - 1;
+        this.cells = new int[size * size];
+        this.rowMask = new int[size];
+        this.colMask = new int[size];
+        this.boxMask = new int[size];
+        this.rowCount = new byte[size * size];
+        this.colCount = new byte[size * size];
+        this.boxCount = new byte[size * size];
+    }
+
+    public BoardState(int[][] board) {
+        this(board.length);
+        load(board);
+    }
+
+    /**
+     * Replace the whole state by the entries of board.
+     */
+    public void load(int[][] board) {
+        clearAll();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (board[row][col] != 0) {
+                    set(row, col, board[row][col]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace the whole state by the entries of board, without going through an int[][].
+     */
+    public void load(PackedBoard board) {
+        clearAll();
+        for (int cell = 0; cell < size * size; cell++) {
+            int value = board.get(cell);
+            if (value != 0) {
+                setCell(cell, value);
+            }
+        }
+    }
+
+    public void clearAll() {
+        Arrays.fill(cells, 0);
+        Arrays.fill(rowMask, 0);
+        Arrays.fill(colMask, 0);
+        Arrays.fill(boxMask, 0);
+        Arrays.fill(rowCount, (byte) 0);
+        Arrays.fill(colCount, (byte) 0);
+        Arrays.fill(boxCount, (byte) 0);
+        filled = 0;
+        duplicates = 0;
+    }
+
+    public void copyTo(int[][] board) {
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(cells, row * size, board[row], 0, size);
+        }
+    }
+
+    public void copyTo(PackedBoard board) {
+        for (int cell = 0; cell < size * size; cell++) {
+            board.set(cell, cells[cell]);
+        }
+    }
+
+    public int[][] toArray() {
+        int[][] board = new int[size][size];
+        copyTo(board);
+        return board;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * @return mask with the bits of all values 1..size set
+     */
+    public int getFullMask() {
+        return fullMask;
+    }
+
+    public int get(int row, int col) {
+        return cells[row * size + col];
+    }
+
+    /**
+     * @param cell row-major cell index, row * size + col
+     */
+    public int getCell(int cell) {
+        return cells[cell];
+    }
+
+    public void setCell(int cell, int value) {
+        set(cell / size, cell % size, value);
+    }
+
+    public int cellCandidates(int cell) {
+        return candidates(cell / size, cell % size);
+    }
+
+    public int box(int row, int col) {
+        return (row / blockSize) * blockSize + col / blockSize;
+    }
+
+    /**
+     * Set a cell, replacing its previous value. Value 0 clears the cell.
+     */
+    public void set(int row, int col, int value) {
+        int index = row * size + col;
+        int old = cells[index];
+        if (old == value) {
+            return;
+        }
+        int box = box(row, col);
+        if (old != 0) {
+            int bit = 1 << (old - 1);
+            if (--rowCount[row * size + old - 1] == 0) rowMask[row] &= ~bit; else duplicates--;
+            if (--colCount[col * size + old - 1] == 0) colMask[col] &= ~bit; else duplicates--;
+            if (--boxCount[box * size + old - 1] == 0) boxMask[box] &= ~bit; else duplicates--;
+            filled--;
+        }
+        if (value != 0) {
+            int bit = 1 << (value - 1);
+            if (rowCount[row * size + value - 1]++ > 0) duplicates++;
+            if (colCount[col * size + value - 1]++ > 0) duplicates++;
+            if (boxCount[box * size + value - 1]++ > 0) duplicates++;
+            rowMask[row] |= bit;
+            colMask[col] |= bit;
+            boxMask[box] |= bit;
+            filled++;
+        }
+        cells[index] = value;
+    }
+
+    public void clear(int row, int col) {
+        set(row, col, 0);
+    }
+
+    /**
+     * @return mask of the values that can be placed at (row, col) without conflicting with row, column or box.
+     * The value of the cell itself is taken into account, so call this on empty cells.
+     */
+    public int candidates(int row, int col) {
+        return fullMask & ~(rowMask[row] | colMask[col] | boxMask[box(row, col)]);
+    }
+
+    /**
+     * @return true if value could be placed at the empty cell (row, col). Value 0 is always valid.
+     */
+    public boolean canPlace(int row, int col, int value) {
+        return value == 0 || (candidates(row, col) & (1 << (value - 1))) != 0;
+    }
+
+    /**
+     * @return true if the entry at (row, col) is empty or occurs only once in its row, column and box.
+     */
+    public boolean isValid(int row, int col) {
+        int value = get(row, col);
+        return value == 0 || (rowCount[row * size + value - 1] == 1 &&
+                colCount[col * size + value - 1] == 1 &&
+                boxCount[box(row, col) * size + value - 1] == 1);
+    }
+
+    public boolean rowContains(int row, int value) {
+        return (rowMask[row] & (1 << (value - 1))) != 0;
+    }
+
+    public boolean colContains(int col, int value) {
+        return (colMask[col] & (1 << (value - 1))) != 0;
+    }
+
+    public boolean boxContains(int row, int col, int value) {
+        return (boxMask[box(row, col)] & (1 << (value - 1))) != 0;
+    }
+
+    public boolean isFull() {
+        return filled == size * size;
+    }
+
+    /**
+     * @return number of non-empty cells
+     */
+    public int getFilled() {
+        return filled;
+    }
+
+    /**
+     * @return true if some value occurs more than once in a row, column or box
+     */
+    public boolean hasConflicts() {
+        return duplicates != 0;
+    }
+
+    /**
+     * A full board without a value twice in a unit contains every value in every unit, so it is solved.
+     */
+    public boolean isSolved() {
+        return isFull() && duplicates == 0;
+    }
+}
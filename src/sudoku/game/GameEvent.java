@@ -0,0 +1,81 @@
+package sudoku.game;
+
+/**
+ * Immutable notification of a change of a {@link SudokuGame}, sent to its {@link GameListener}s.
+ * Events about a single cell carry its row, column and new value; the events about the whole board are shared
+ * constants, so sending them allocates nothing.
+ */
+public final class GameEvent {
+    public enum Type {
+        CREATED,
+        VALID_ENTERED,
+        INVALID_ENTERED,
+        HINT,
+        RESET,
+        AUTO_SOLVED,
+        NOT_SOLVED, // an asynchronous solve ended without a solution: none exists, or it was cancelled or timed out
+        WON
+    }
+
+    private static final GameEvent[] boardEvents = new GameEvent[Type.values().length];
+
+    static {
+        for (Type type : Type.values()) {
+            boardEvents[type.ordinal()] = new GameEvent(type, -1, -1, 0);
+        }
+    }
+
+    private final Type type;
+    private final int row;
+    private final int col;
+    private final int value;
+
+    private GameEvent(Type type, int row, int col, int value) {
+        this.type = type;
+        this.row = row;
+        this.col = col;
+        this.value = value;
+    }
+
+    /**
+     * @return the shared event of type about the whole board
+     */
+    public static GameEvent of(Type type) {
+        return boardEvents[type.ordinal()];
+    }
+
+    /**
+     * @return event of type about the cell (row, col), which now holds value
+     */
+    public static GameEvent of(Type type, int row, int col, int value) {
+        return new GameEvent(type, row, col, value);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return true if the event is about a single cell, false if about the whole board
+     */
+    public boolean hasCell() {
+        return row >= 0;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return hasCell() ? type + "(" + row + ", " + col + ": " + value + ")" : type.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package sudoku.game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Delivers the events of one game to its listeners. The listener list is copy-on-write, so listeners can be added
+ * and removed from any thread while events are sent without locking. Publishing and batching happen on the thread
+ * that changes the game, like the changes themselves.
+ */
+final class GameEventBus {
+    private final SudokuGame source;
+    private final List<GameListener> listeners = new CopyOnWriteArrayList<>();
+
+    // events held back by the batches currently open
+    private final List<GameEvent> pending = new ArrayList<>();
+    private int batchDepth;
+
+    GameEventBus(SudokuGame source) {
+        this.source = source;
+    }
+
+    void add(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    void remove(GameListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return false if events would reach nobody, so they need not be made
+     */
+    boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    void publish(GameEvent event) {
+        if (batchDepth > 0) {
+            pending.add(event);
+            return;
+        }
+        for (GameListener listener : listeners) {
+            listener.onEvent(source, event);
+        }
+    }
+
+    void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Close a batch; closing the outermost one delivers its events.
+     */
+    void endBatch() {
+        if (--batchDepth > 0 || pending.isEmpty()) {
+            return;
+        }
+        List<GameEvent> events = Collections.unmodifiableList(new ArrayList<>(pending));
+        pending.clear();
+        for (GameListener listener : listeners) {
+            listener.onEvents(source, events);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package sudoku.game;
+
+import java.util.List;
+
+/**
+ * Receives the {@link GameEvent}s of the games it was added to, on the thread that changed the game.
+ */
+@FunctionalInterface
+public interface GameListener {
+    void onEvent(SudokuGame game, GameEvent event);
+
+    /**
+     * Receive the events of a batch of changes, see {@link SudokuGame#batch(Runnable)}. Listeners that only need
+     * the final state can override this to redraw once per batch.
+     *
+     * @param events unmodifiable, in the order of the changes
+     */
+    default void onEvents(SudokuGame game, List<GameEvent> events) {
+        for (GameEvent event : events) {
+            onEvent(game, event);
+        }
+    }
+}
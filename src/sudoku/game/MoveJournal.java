@@ -0,0 +1,213 @@
+package sudoku.game;
+
+import java.util.Arrays;
+
+/**
+ * History of the changes of a game as compact deltas, one int per changed cell: the row-major cell index, the old
+ * and the new value, and a link bit that ties a delta to the one before it, so a change of many cells (a reset or
+ * a solve) is undone and redone as one step.
+ * <p>
+ * Deltas are appended at the position of the journal; undo and redo move the position back and forth, each in
+ * constant time per cell. A change recorded after an undo drops the deltas that could have been redone.
+ * Every state the journal went through can be rebuilt from the initial board with {@link #replay}, so a game can
+ * be checkpointed as its initial board and the int array of {@link #toArray()}, which grows by one int per move,
+ * instead of as a whole board per move.
+ */
+public final class MoveJournal {
+    // boards up to 64x64: 12 bits for the cell, 6 bits for each value
+    private static final int VALUE_BITS = 6;
+    private static final int VALUE_MASK = (1 << VALUE_BITS) - 1;
+    private static final int CELL_SHIFT = 2 * VALUE_BITS;
+    private static final int CELL_MASK = (1 << 12) - 1;
+    private static final int LINKED = 1 << 31;
+
+    private int[] deltas;
+    private int length;
+    private int position;
+
+    public MoveJournal() {
+        this.deltas = new int[16];
+    }
+
+    private MoveJournal(int[] deltas, int length, int position) {
+        this.deltas = deltas;
+        this.length = length;
+        this.position = position;
+    }
+
+    /**
+     * The deltas are only checked against a board when they are replayed, as {@link SudokuGame#restore} does.
+     *
+     * @param deltas   deltas as returned by {@link #toArray()}
+     * @param position number of deltas applied, the rest can be redone
+     */
+    public static MoveJournal of(int[] deltas, int position) {
+        if (position < 0 || position > deltas.length) {
+            throw new IllegalArgumentException("position " + position + " of " + deltas.length + " deltas");
+        }
+        return new MoveJournal(Arrays.copyOf(deltas, Math.max(deltas.length, 16)), deltas.length, position);
+    }
+
+    public MoveJournal copy() {
+        return new MoveJournal(deltas.clone(), length, position);
+    }
+
+    public static int encode(int cell, int oldValue, int newValue, boolean linked) {
+        if (cell > CELL_MASK || oldValue > VALUE_MASK || newValue > VALUE_MASK) {
+            throw new IllegalArgumentException("delta out of range: cell " + cell + ", " + oldValue + " -> "
+                    + newValue);
+        }
+        return (linked ? LINKED : 0) | cell << CELL_SHIFT | oldValue << VALUE_BITS | newValue;
+    }
+
+    public static int cell(int delta) {
+        return delta >>> CELL_SHIFT & CELL_MASK;
+    }
+
+    public static int oldValue(int delta) {
+        return delta >>> VALUE_BITS & VALUE_MASK;
+    }
+
+    public static int newValue(int delta) {
+        return delta & VALUE_MASK;
+    }
+
+    /**
+     * @return true if delta belongs to the same step as the delta before it
+     */
+    public static boolean isLinked(int delta) {
+        return (delta & LINKED) != 0;
+    }
+
+    /**
+     * Append a change of cell at the position, dropping the deltas after it.
+     *
+     * @param linked true to undo and redo it together with the delta recorded before
+     */
+    public void record(int cell, int oldValue, int newValue, boolean linked) {
+        int delta = encode(cell, oldValue, newValue, linked && position > 0);
+        if (position == deltas.length) {
+            deltas = Arrays.copyOf(deltas, deltas.length * 2);
+        }
+        deltas[position++] = delta;
+        length = position;
+    }
+
+    public boolean canUndo() {
+        return position > 0;
+    }
+
+    public boolean canRedo() {
+        return position < length;
+    }
+
+    /**
+     * Move back by one delta. The caller restores the old value of the delta, and keeps undoing while the delta
+     * returned is linked.
+     *
+     * @return the delta undone
+     * @throws IllegalStateException if there is nothing to undo
+     */
+    public int undo() {
+        if (position == 0) {
+            throw new IllegalStateException("nothing to undo");
+        }
+        return deltas[--position];
+    }
+
+    /**
+     * Move forward by one delta. The caller enters the new value of the delta, and keeps redoing while
+     * {@link #isRedoLinked()}.
+     *
+     * @return the delta redone
+     * @throws IllegalStateException if there is nothing to redo
+     */
+    public int redo() {
+        if (position == length) {
+            throw new IllegalStateException("nothing to redo");
+        }
+        return deltas[position++];
+    }
+
+    /**
+     * @return true if the next delta to redo belongs to the step redone last
+     */
+    public boolean isRedoLinked() {
+        return position < length && isLinked(deltas[position]);
+    }
+
+    /**
+     * @return number of deltas applied
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * @return number of deltas recorded, including the ones that can be redone
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * Fold the oldest applied deltas into start and forget them, so that about keep deltas are left. Only whole
+     * steps are folded, and the folded moves can no longer be undone; start and the journal still give the
+     * current entries when replayed.
+     *
+     * @param start the board the journal is replayed from, updated in place
+     * @return number of deltas folded
+     */
+    public int trim(int keep, PackedBoard start) {
+        int fold = Math.min(position, length - keep);
+        if (fold <= 0) {
+            return 0;
+        }
+        while (fold < position && isLinked(deltas[fold])) { // never split a step
+            fold++;
+        }
+        for (int index = 0; index < fold; index++) {
+            start.set(cell(deltas[index]), newValue(deltas[index]));
+        }
+        System.arraycopy(deltas, fold, deltas, 0, length - fold);
+        length -= fold;
+        position -= fold;
+        return fold;
+    }
+
+    public void clear() {
+        length = 0;
+        position = 0;
+    }
+
+    /**
+     * @return the recorded deltas, including the ones that can be redone
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(deltas, length);
+    }
+
+    /**
+     * Write the state after the first moves deltas into target, starting from the entries of initial.
+     *
+     * @throws IllegalArgumentException if a delta does not fit the board: its cell or a value is out of range,
+     *                                  it changes a fixed cell of initial, or its old value is not the replayed one
+     */
+    public void replay(PackedBoard initial, int moves, PackedBoard target) {
+        if (moves < 0 || moves > length) {
+            throw new IllegalArgumentException("replay of " + moves + " moves, " + length + " recorded");
+        }
+        int size = initial.getSize();
+        target.copyFrom(initial);
+        for (int index = 0; index < moves; index++) {
+            int delta = deltas[index];
+            int cell = cell(delta);
+            if (cell >= size * size || oldValue(delta) > size || newValue(delta) > size || initial.isFixed(cell)
+                    || target.get(cell) != oldValue(delta)) {
+                throw new IllegalArgumentException("delta " + index + " does not fit the board: cell " + cell
+                        + ", " + oldValue(delta) + " -> " + newValue(delta));
+            }
+            target.set(cell, newValue(delta));
+        }
+    }
+}
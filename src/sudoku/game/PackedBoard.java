@@ -0,0 +1,171 @@
+package sudoku.game;
+
+import java.util.Arrays;
+
+/**
+ * Compact board: the cells are packed row-major into longs with as few bits per cell as the size needs
+ * (4 bits for 9x9, 5 bits for 16x16 and 25x25), and a bitset marks the fixed (initial) cells.
+ * A cell never straddles two longs. A 9x9 board takes 6 + 2 longs instead of two jagged int[9][9] arrays.
+ */
+public final class PackedBoard {
+    private final int size;
+    private final int bitsPerCell;
+    private final int cellsPerWord;
+    private final long cellMask;
+
+    private final long[] words;
+    private final long[] fixed;
+
+    public PackedBoard(int size) {
+        this.size = size;
+        this.bitsPerCell = 32 - Integer.numberOfLeadingZeros(size);
+        this.cellsPerWord = 64 / bitsPerCell;
+        this.cellMask = (1L << bitsPerCell) - 1;
+        int cells = size * size;
+        this.words = new long[(cells + cellsPerWord - 1) / cellsPerWord];
+        this.fixed = new long[(cells + 63) / 64];
+    }
+
+    /**
+     * @return packed copy of board, with all non-zero entries marked as fixed
+     */
+    public static PackedBoard of(int[][] board) {
+        PackedBoard packed = new PackedBoard(board.length);
+        for (int row = 0; row < board.length; row++) {
+            for (int col = 0; col < board.length; col++) {
+                packed.set(row, col, board[row][col]);
+            }
+        }
+        packed.fixEntries();
+        return packed;
+    }
+
+    public PackedBoard copy() {
+        PackedBoard copy = new PackedBoard(size);
+        System.arraycopy(words, 0, copy.words, 0, words.length);
+        System.arraycopy(fixed, 0, copy.fixed, 0, fixed.length);
+        return copy;
+    }
+
+    /**
+     * Overwrite cells and fixed bits with the ones of other, which must have the same size.
+     */
+    public void copyFrom(PackedBoard other) {
+        if (other.size != size) {
+            throw new IllegalArgumentException("size " + other.size + " instead of " + size);
+        }
+        System.arraycopy(other.words, 0, words, 0, words.length);
+        System.arraycopy(other.fixed, 0, fixed, 0, fixed.length);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @param cell row-major cell index, row * size + col
+     */
+    public int get(int cell) {
+        int shift = (cell % cellsPerWord) * bitsPerCell;
+        return (int) ((words[cell / cellsPerWord] >>> shift) & cellMask);
+    }
+
+    /**
+     * @throws IllegalArgumentException if value does not fit the bits of a cell, instead of spilling into the next
+     */
+    public void set(int cell, int value) {
+        if (value < 0 || value > cellMask) {
+            throw new IllegalArgumentException("value out of range: " + value);
+        }
+        int word = cell / cellsPerWord;
+        int shift = (cell % cellsPerWord) * bitsPerCell;
+        words[word] = (words[word] & ~(cellMask << shift)) | ((long) value << shift);
+    }
+
+    public int get(int row, int col) {
+        return get(row * size + col);
+    }
+
+    public void set(int row, int col, int value) {
+        set(row * size + col, value);
+    }
+
+    public boolean isFixed(int cell) {
+        return (fixed[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    public boolean isFixed(int row, int col) {
+        return isFixed(row * size + col);
+    }
+
+    public void setFixed(int row, int col, boolean isFixed) {
+        setFixed(row * size + col, isFixed);
+    }
+
+    public void setFixed(int cell, boolean isFixed) {
+        if (isFixed) {
+            fixed[cell >>> 6] |= 1L << cell;
+        } else {
+            fixed[cell >>> 6] &= ~(1L << cell);
+        }
+    }
+
+    /**
+     * Mark exactly the non-zero cells as fixed, e.g. after a puzzle was written into the board.
+     */
+    public void fixEntries() {
+        for (int cell = 0; cell < size * size; cell++) {
+            setFixed(cell, get(cell) != 0);
+        }
+    }
+
+    /**
+     * Clear all cells that are not fixed.
+     */
+    public void reset() {
+        for (int cell = 0; cell < size * size; cell++) {
+            if (!isFixed(cell)) {
+                set(cell, 0);
+            }
+        }
+    }
+
+    public void copyTo(int[][] board) {
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                board[row][col] = get(row, col);
+            }
+        }
+    }
+
+    public int[][] toArray() {
+        int[][] board = new int[size][size];
+        copyTo(board);
+        return board;
+    }
+
+    public String toCSV() {
+        StringBuilder stringBuilder = new StringBuilder(size * size * 3);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size - 1; col++) { // all but last, ';' each
+                stringBuilder.append(get(row, col)).append(';');
+            }
+            stringBuilder.append(get(row, size - 1)).append('\n'); // no ';' for last
+        }
+        return stringBuilder.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PackedBoard)) {
+            return false;
+        }
+        PackedBoard other = (PackedBoard) o;
+        return size == other.size && Arrays.equals(words, other.words) && Arrays.equals(fixed, other.fixed);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(words) + Arrays.hashCode(fixed);
+    }
+}
@@ -0,0 +1,66 @@
+package sudoku.game;
+
+import sudoku.game.solver.SolveControl;
+import sudoku.game.solver.SolverStats;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handle of a solve started by {@link SudokuGame#bTrackSolveAsync} or {@link SudokuGame#logicSolveAsync}.
+ * It can cancel the solve, shows the search nodes explored so far, and completes with true once the solution
+ * has been applied to the game, or with false if there was none.
+ */
+public class SolveTask {
+    private final SolveControl control;
+    private final SolverStats stats = new SolverStats();
+    private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+    SolveTask(long timeoutMillis) {
+        this.control = timeoutMillis > 0 ? new SolveControl(timeoutMillis, TimeUnit.MILLISECONDS) : new SolveControl();
+    }
+
+    SolveControl getControl() {
+        return control;
+    }
+
+    /**
+     * Stop the search; the game is left as it is.
+     */
+    public void cancel() {
+        control.stop();
+    }
+
+    public boolean isCancelled() {
+        return control.isStopped() && !control.isTimedOut();
+    }
+
+    public boolean isTimedOut() {
+        return control.isTimedOut();
+    }
+
+    /**
+     * @return search nodes explored so far
+     */
+    public long getNodes() {
+        return control.getNodes();
+    }
+
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    /**
+     * @return work done by the solve, complete once the task is done
+     */
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return completes on the delivery executor of the solve, after the observers were notified
+     */
+    public CompletableFuture<Boolean> getResult() {
+        return result;
+    }
+}
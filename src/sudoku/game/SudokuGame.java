@@ -1,13 +1,17 @@
 package sudoku.game;
 
-import sudoku.controller.Message;
 import sudoku.controller.Move;
 import sudoku.game.solver.BacktrackSolver;
+import sudoku.game.solver.DancingLinksSolver;
+import sudoku.game.solver.HintService;
 import sudoku.game.solver.LogicSolver;
+import sudoku.game.solver.ParallelSolver;
+import sudoku.game.solver.SolveCache;
+import sudoku.game.solver.SolverStats;
 
-import java.util.Observable;
+import java.util.concurrent.Executor;
 
-import static sudoku.controller.Message.*;
+import static sudoku.game.GameEvent.Type.*;
 import static sudoku.game.SudokuUtil.isPerfectSquare;
 
 /**
@@ -15,42 +19,99 @@ import static sudoku.game.SudokuUtil.isPerfectSquare;
  * This class provides a model of a sudoku game. The class can be constructed of an initial board.
  * The entries of the initial board are immutable.
  * The board array always keeps all entries, even the ones from the initial board, but they are protected.
- * Since the class inherits from Observable, observers can be added to it.
- * They are notified whenever an entry in the backing array changes.
+ * {@link GameListener}s can be added to it.
+ * They get an immutable {@link GameEvent} whenever an entry in the backing array changes.
  */
-public class SudokuGame extends Observable {
-    /* Using simple 2-d array. Arrays can hold primitive types, collections cannot.
-    Arrays have O(1) indexing and changing values. Size of board is constant.
+public class SudokuGame {
+    /* Flat arrays only. Size of board is constant.
+    The current entries live in a BoardState, which keeps the row/col/box masks for validity checks.
+    The initial board is a PackedBoard, its fixed bits mark the protected entries.
+    Conflicting cells are tracked in a bitset that every move updates for the cell and the peers it can affect,
+    so neither the win check nor the conflict queries ever scan the board.
+    Every change is journaled as an int delta, so undo and redo never copy the board.
     */
     private final int SIZE;
 
-    // all arrays initialized with 0
-    private final int[][] board;
-    private final int[][] initial;
+    // solutions of the logic and backtracking solves, shared by all games
+    private static final SolveCache solveCache = new SolveCache(256);
+
+    private final BoardState board;
+    private final PackedBoard initial;
+
+    // the entries the game was made with, and every change since as deltas, for undo, redo and replay
+    private final PackedBoard start;
+    private final MoveJournal journal;
+    private int journalLimit = Integer.MAX_VALUE;
+
+    private final GameEventBus events = new GameEventBus(this);
+
+    // bit cell is set if the entry of cell occurs more than once in its row, column or box
+    private final long[] conflicts;
+    private int conflictCount;
+
+    // made by the first hint, a game without hints does not pay for keeping the candidates
+    private HintService hints;
+
+    // work done by the last logic, backtracking or dancing links solve
+    private final SolverStats solverStats = new SolverStats();
 
     public SudokuGame(int[][] initial) throws IllegalArgumentException {
-        if (isPerfectSquare(initial.length) &&
-                initial.length == initial[0].length) {
-            SIZE = initial.length;
-            this.board = new int[SIZE][SIZE];
-            this.initial = new int[SIZE][SIZE];
-            for (int row = 0; row < SIZE; row++) {
-                for (int col = 0; col < SIZE; col++) {
-                    this.board[row][col] = 0;
-                    this.initial[row][col] = 0;
-                    if (initial[row][col] != 0) {
-                        this.initial[row][col] = initial[row][col];
-                        this.board[row][col] = initial[row][col];
-                    }
-                }
+        this(checkedPack(initial));
+    }
+
+    /**
+     * @param initial the fixed cells of initial are the initial entries, its other cells are entered as moves
+     */
+    public SudokuGame(PackedBoard initial) throws IllegalArgumentException {
+        this(initial, new MoveJournal());
+    }
+
+    private SudokuGame(PackedBoard initial, MoveJournal journal) {
+        if (!isPerfectSquare(initial.getSize()) || initial.getSize() > BoardState.MAX_SIZE) {
+            throw new IllegalArgumentException("Not a valid initial Array!");
+        }
+        SIZE = initial.getSize();
+        for (int cell = 0; cell < SIZE * SIZE; cell++) {
+            if (initial.get(cell) > SIZE) {
+                throw new IllegalArgumentException("entry out of range: " + initial.get(cell));
             }
-        } else {
+        }
+        this.board = new BoardState(SIZE);
+        this.conflicts = new long[(SIZE * SIZE + 63) / 64];
+        this.initial = initial.copy();
+        this.initial.reset();
+        this.start = initial.copy();
+        this.journal = journal;
+        load(initial);
+    }
+
+    /**
+     * Restore a game from a checkpoint: the entries it was made with and its journal. The moves of the journal up
+     * to its position are replayed, the ones after it can be redone.
+     *
+     * @throws IllegalArgumentException if start is no valid board or a delta of journal does not fit it
+     * @see #getStartBoard()
+     * @see #getJournal()
+     */
+    public static SudokuGame restore(PackedBoard start, MoveJournal journal) {
+        PackedBoard entries = new PackedBoard(start.getSize());
+        journal.replay(start, journal.size(), entries); // checks the deltas to redo as well
+        journal.replay(start, journal.getPosition(), entries);
+        SudokuGame game = new SudokuGame(start, journal.copy());
+        game.load(entries);
+        return game;
+    }
+
+    private static PackedBoard checkedPack(int[][] initial) {
+        if (!isPerfectSquare(initial.length) || initial.length > BoardState.MAX_SIZE
+                || initial.length != initial[0].length) {
             throw new IllegalArgumentException("Not a valid initial Array!");
         }
+        return PackedBoard.of(initial);
     }
 
     public boolean isInitial(int row, int col) {
-        return initial[row][col] != 0;
+        return initial.isFixed(row, col);
     }
 
     public int getSize() {
@@ -59,8 +120,8 @@ public class SudokuGame extends Observable {
 
     public int getValue(int rowIndex, int colIndex) {
         if (rowIndex >= 0 && rowIndex < SIZE &&
-                colIndex >= 0 && rowIndex < SIZE) {
-            return board[rowIndex][colIndex];
+                colIndex >= 0 && colIndex < SIZE) {
+            return board.get(rowIndex, colIndex);
         }
         System.err.println("Invalid access!");
         return 0;
@@ -83,91 +144,410 @@ public class SudokuGame extends Observable {
                 System.err.println("write on initial position!");
                 return false;
             }
-            Message msg = validPosition(row, col, value) ? (isSolved() ? WON : VALID_ENTERED) : INVALID_ENTERED;
-            msg.setMove(row, col, value);
-            board[row][col] = value;
-            setChanged();
-            notifyObservers(msg);
+            record(row * SIZE + col, value, false);
+            place(row, col, value);
+            publishMove(row, col, value);
             return true;
         } else {
             return false;
         }
     }
 
+    /**
+     * Take back the last move, or all cells of the last reset or solve.
+     *
+     * @return false if there was nothing to undo
+     */
+    public boolean undo() {
+        if (!journal.canUndo()) {
+            return false;
+        }
+        batch(() -> {
+            int delta;
+            do {
+                delta = journal.undo();
+                enter(MoveJournal.cell(delta), MoveJournal.oldValue(delta));
+            } while (MoveJournal.isLinked(delta));
+        });
+        return true;
+    }
+
+    /**
+     * Make the last move taken back by {@link #undo()} again.
+     *
+     * @return false if there was nothing to redo
+     */
+    public boolean redo() {
+        if (!journal.canRedo()) {
+            return false;
+        }
+        batch(() -> {
+            do {
+                int delta = journal.redo();
+                enter(MoveJournal.cell(delta), MoveJournal.newValue(delta));
+            } while (journal.isRedoLinked());
+        });
+        return true;
+    }
+
+    public boolean canUndo() {
+        return journal.canUndo();
+    }
+
+    public boolean canRedo() {
+        return journal.canRedo();
+    }
+
+    /**
+     * @return a copy of the journal, which with {@link #getStartBoard()} is a checkpoint of the game
+     */
+    public MoveJournal getJournal() {
+        return journal.copy();
+    }
+
+    /**
+     * @return number of deltas in the journal, one int each, without copying it
+     */
+    public int getJournalSize() {
+        return journal.size();
+    }
+
+    /**
+     * Keep the journal at about maxDeltas deltas: once it is that long, the oldest steps are folded into the start
+     * board before a new one is recorded, and can no longer be undone. Unlimited by default.
+     */
+    public void setJournalLimit(int maxDeltas) {
+        if (maxDeltas < 1) {
+            throw new IllegalArgumentException("journal limit " + maxDeltas);
+        }
+        journalLimit = maxDeltas;
+    }
+
+    /**
+     * @return the entries the game was made with, the initial entries marked as fixed, and the moves folded out of
+     * the journal if it reached its limit
+     */
+    public PackedBoard getStartBoard() {
+        return start.copy();
+    }
+
+    /**
+     * @return the entries after the first moves deltas of the journal, rebuilt from the start board
+     */
+    public PackedBoard replay(int moves) {
+        PackedBoard entries = new PackedBoard(SIZE);
+        journal.replay(start, moves, entries);
+        return entries;
+    }
+
+    private void enter(int cell, int value) {
+        place(cell / SIZE, cell % SIZE, value);
+        publishMove(cell / SIZE, cell % SIZE, value);
+    }
+
+    private void publishMove(int row, int col, int value) {
+        publish(board.isValid(row, col) ? (isSolved() ? WON : VALID_ENTERED) : INVALID_ENTERED, row, col, value);
+    }
+
+    /**
+     * Journal the change of cell to value, if it is one.
+     *
+     * @param linked true to undo it together with the change recorded before
+     * @return true if a change was journaled
+     */
+    private boolean record(int cell, int value, boolean linked) {
+        int old = board.getCell(cell);
+        if (old == value) {
+            return false;
+        }
+        if (!linked && journal.size() >= journalLimit) {
+            journal.trim(journalLimit - journalLimit / 4, start); // a quarter at once, so trimming is rare
+        }
+        journal.record(cell, old, value, linked);
+        return true;
+    }
+
+    /**
+     * Journal the changes loading entries makes, as one step.
+     */
+    private void recordAll(PackedBoard entries) {
+        boolean linked = false;
+        for (int cell = 0; cell < SIZE * SIZE; cell++) {
+            linked |= record(cell, entries.get(cell), linked);
+        }
+    }
+
+    public void addListener(GameListener listener) {
+        events.add(listener);
+    }
+
+    public void removeListener(GameListener listener) {
+        events.remove(listener);
+    }
+
+    /**
+     * Run changes, e.g. a sequence of moves, and deliver their events to the listeners together afterwards,
+     * through {@link GameListener#onEvents}.
+     */
+    public void batch(Runnable changes) {
+        events.beginBatch();
+        try {
+            changes.run();
+        } finally {
+            events.endBatch();
+        }
+    }
+
+    private void publish(GameEvent.Type type) {
+        events.publish(GameEvent.of(type));
+    }
+
+    private void publish(GameEvent.Type type, int row, int col, int value) {
+        if (events.hasListeners()) { // no event allocated for nobody
+            events.publish(GameEvent.of(type, row, col, value));
+        }
+    }
+
+    private void place(int row, int col, int value) {
+        int old = board.get(row, col);
+        board.set(row, col, value);
+        if (hints != null) {
+            hints.changed(row, col);
+        }
+        // only entries equal to the old or the new value can gain or lose a conflict
+        int blockSize = board.getBlockSize();
+        int boxRow = row - row % blockSize;
+        int boxCol = col - col % blockSize;
+        for (int index = 0; index < SIZE; index++) {
+            refreshConflict(row, index, old, value);
+            refreshConflict(index, col, old, value);
+            refreshConflict(boxRow + index / blockSize, boxCol + index % blockSize, old, value);
+        }
+    }
+
+    private void refreshConflict(int row, int col, int old, int value) {
+        int entry = board.get(row, col);
+        if (entry != 0 && (entry == old || entry == value) || conflictBit(row, col)) {
+            setConflict(row, col, !board.isValid(row, col));
+        }
+    }
+
+    private void load(PackedBoard entries) {
+        board.load(entries);
+        if (hints != null) {
+            hints.reload();
+        }
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                setConflict(row, col, !board.isValid(row, col));
+            }
+        }
+    }
+
+    private boolean conflictBit(int row, int col) {
+        int cell = row * SIZE + col;
+        return (conflicts[cell >>> 6] & 1L << cell) != 0;
+    }
+
+    private void setConflict(int row, int col, boolean conflict) {
+        if (conflictBit(row, col) != conflict) {
+            int cell = row * SIZE + col;
+            conflicts[cell >>> 6] ^= 1L << cell;
+            conflictCount += conflict ? 1 : -1;
+        }
+    }
+
     boolean colContains(final int colIndex, final int value) {
-        return SudokuUtil.colContains(board, SIZE, colIndex, value);
+        return board.colContains(colIndex, value);
     }
 
     public boolean rowContains(final int rowIndex, final int value) {
-        return SudokuUtil.rowContains(board, SIZE, rowIndex, value);
+        return board.rowContains(rowIndex, value);
     }
 
     boolean squareContains(final int row, final int col, final int value) {
-        return SudokuUtil.squareContains(board, SIZE, row, col, value);
-    }
-
-    private boolean validPosition(int row, int col, int value) {
-        return SudokuUtil.validPosition(board, SIZE, row, col, value);
+        return board.boxContains(row, col, value);
     }
 
     public boolean logicSolve() {
-        if (LogicSolver.solve(board, SIZE)) {
-            setChanged();
-            notifyObservers(AUTO_SOLVED);
+        PackedBoard solution = toPackedBoard();
+        solverStats.reset();
+        boolean solved = solveCache.solve(solution, packed -> LogicSolver.solve(packed, solverStats));
+        recordAll(solution);
+        load(solution); // also keeps a partial solution
+        if (solved) {
+            publish(AUTO_SOLVED);
             return true;
         }
         return false;
     }
 
     public boolean bTrackSolve() {
-        int[][] clone = cloneBoard();
-        if (BacktrackSolver.solve(board, clone, SIZE)) {
-            setChanged();
-            notifyObservers(AUTO_SOLVED);
+        PackedBoard solution = toPackedBoard();
+        solverStats.reset();
+        if (solveCache.solve(solution, packed -> BacktrackSolver.solveMostConstrained(packed, solverStats))) {
+            recordAll(solution);
+            load(solution);
+            publish(AUTO_SOLVED);
+            return true;
+        } else
+            return false;
+    }
+
+    public boolean dlxSolve() {
+        PackedBoard solution = toPackedBoard();
+        solverStats.reset();
+        if (DancingLinksSolver.solve(solution, solverStats)) {
+            recordAll(solution);
+            load(solution);
+            publish(AUTO_SOLVED);
+            return true;
+        } else
+            return false;
+    }
+
+    public boolean parallelSolve() {
+        PackedBoard solution = toPackedBoard();
+        if (ParallelSolver.solve(solution)) {
+            recordAll(solution);
+            load(solution);
+            publish(AUTO_SOLVED);
             return true;
         } else
             return false;
     }
 
+    /**
+     * Solve like {@link #bTrackSolve()}, but on executor. The result is handed to delivery, which should run on the
+     * thread that owns the game (Platform::runLater for the JavaFX thread): there the solution is loaded and
+     * AUTO_SOLVED sent to the observers, or NOT_SOLVED if there is no solution, the task was cancelled or timed
+     * out, or the entries changed while solving.
+     *
+     * @param timeoutMillis time after which the search gives up, 0 for no limit
+     */
+    public SolveTask bTrackSolveAsync(Executor executor, Executor delivery, long timeoutMillis) {
+        SolveTask task = new SolveTask(timeoutMillis);
+        return solveAsync(task, executor, delivery,
+                packed -> BacktrackSolver.solveMostConstrained(packed, task.getStats(), task.getControl()));
+    }
+
+    /**
+     * Solve like {@link #logicSolve()}, but on executor like {@link #bTrackSolveAsync}. A partial solution is not
+     * kept.
+     */
+    public SolveTask logicSolveAsync(Executor executor, Executor delivery, long timeoutMillis) {
+        SolveTask task = new SolveTask(timeoutMillis);
+        return solveAsync(task, executor, delivery,
+                packed -> LogicSolver.solve(packed, task.getStats(), task.getControl()));
+    }
+
+    private SolveTask solveAsync(SolveTask task, Executor executor, Executor delivery, SolveCache.Solver solver) {
+        PackedBoard puzzle = toPackedBoard();
+        PackedBoard solution = puzzle.copy();
+        executor.execute(() -> {
+            boolean solved = false;
+            RuntimeException error = null;
+            try {
+                solved = solveCache.solve(solution, solver);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            boolean found = solved;
+            RuntimeException failure = error;
+            delivery.execute(() -> {
+                boolean applied = found && !task.isCancelled() && toPackedBoard().equals(puzzle);
+                if (applied) {
+                    recordAll(solution);
+                    load(solution);
+                }
+                publish(applied ? AUTO_SOLVED : NOT_SOLVED);
+                if (failure != null) {
+                    task.getResult().completeExceptionally(failure);
+                } else {
+                    task.getResult().complete(applied);
+                }
+            });
+        });
+        return task;
+    }
+
+    /**
+     * @return work done by the last logic, backtracking or dancing links solve, all zero if the solution was cached
+     */
+    public SolverStats getSolverStats() {
+        return solverStats;
+    }
+
+    public static SolveCache getSolveCache() {
+        return solveCache;
+    }
+
     public void reset() {
+        boolean linked = false;
         for (int row = 0; row < SIZE; row++) {
             for (int col = 0; col < SIZE; col++) {
                 if (!isInitial(row, col)) {
-                    board[row][col] = 0;
+                    linked |= record(row * SIZE + col, 0, linked);
+                    place(row, col, 0);
                 }
             }
         }
-        setChanged();
-        notifyObservers(RESET);
+        publish(RESET);
     }
 
-    private boolean isSolved() {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                if (board[row][col] == 0 || !validPosition(row, col, board[row][col]))
-                    return false;
+    /**
+     * @return true if every cell is filled and no entry conflicts with another, in constant time
+     */
+    public boolean isSolved() {
+        return board.isSolved();
+    }
+
+    /**
+     * @return number of filled cells, initial entries included
+     */
+    public int getFilledCount() {
+        return board.getFilled();
+    }
+
+    /**
+     * @return number of cells whose entry occurs more than once in their row, column or box
+     */
+    public int getConflictCount() {
+        return conflictCount;
+    }
+
+    /**
+     * @return true if the entry at (row, col) occurs more than once in its row, column or box
+     */
+    public boolean isConflict(int row, int col) {
+        return conflictBit(row, col);
+    }
+
+    /**
+     * @return row-major indices (row * size + col) of the conflicting cells, in ascending order
+     */
+    public int[] getConflictingCells() {
+        int[] cells = new int[conflictCount];
+        int count = 0;
+        for (int word = 0; word < conflicts.length; word++) {
+            for (long bits = conflicts[word]; bits != 0; bits &= bits - 1) {
+                cells[count++] = word * 64 + Long.numberOfTrailingZeros(bits);
             }
         }
-        return true;
+        return cells;
     }
 
-    private int[][] cloneBoard() {
-        int[][] clone = new int[SIZE][SIZE];
-        for (int row = 0; row < SIZE; row++) {
-            System.arraycopy(board[row], 0, clone[row], 0, SIZE);
-        }
-        return clone;
+    /**
+     * @return the current entries, with the initial entries marked as fixed
+     */
+    public PackedBoard toPackedBoard() {
+        PackedBoard packed = initial.copy();
+        board.copyTo(packed);
+        return packed;
     }
 
     public String toCSV() {
-        StringBuilder stringBuilder = new StringBuilder();
-        for (int rowIndex = 0; rowIndex < SIZE; rowIndex++) {
-            for (int colIndex = 0; colIndex < SIZE - 1; colIndex++) { // all but last, ';' each
-                stringBuilder.append(board[rowIndex][colIndex]).append(";");
-            }
-            stringBuilder.append(board[rowIndex][SIZE - 1]).append('\n'); // no ';' for last
-        }
-        return stringBuilder.toString();
+        return toPackedBoard().toCSV();
     }
 
     @Override
@@ -178,9 +558,9 @@ public class SudokuGame extends Observable {
                 stringBuilder.append(" ———————————————————————\n");
             for (int col = 0; col < SIZE; ++col) {
                 if (col % Math.sqrt(SIZE) == 0) stringBuilder.append("| ");
-                stringBuilder.append(board[row][col] == 0
+                stringBuilder.append(board.get(row, col) == 0
                         ? " "
-                        : board[row][col]);
+                        : board.get(row, col));
 
                 stringBuilder.append(' ');
             }
@@ -190,22 +570,26 @@ public class SudokuGame extends Observable {
         return stringBuilder.toString();
     }
 
-    public void getHint() {
-        Move hint = LogicSolver.createHint(board, SIZE);
+    /**
+     * Enter the value of a cell that follows from the entries: a naked single if there is one, else a cell filled by
+     * the stronger techniques of the {@link HintService}, else the value of the solution.
+     *
+     * @return the move entered, null if no hint was found because the entries have no solution
+     */
+    public Move getHint() {
+        if (hints == null) {
+            hints = new HintService(board, solveCache);
+        }
+        Move hint = hints.next();
         if (hint != null) {
-            board[hint.row][hint.col] = hint.value;
-            Message msg = HINT;
-            msg.setMove(hint.row, hint.col, hint.value);
-            setChanged();
-            notifyObservers(msg);
+            record(hint.row * SIZE + hint.col, hint.value, false);
+            place(hint.row, hint.col, hint.value);
+            publish(HINT, hint.row, hint.col, hint.value);
         }
+        return hint;
     }
 
     public boolean isValid(int row, int col) {
-        int value = board[row][col];
-        board[row][col] = -1;
-        boolean valid = validPosition(row, col, value);
-        board[row][col] = value;
-        return valid;
+        return !conflictBit(row, col);
     }
 }
@@ -1,6 +1,9 @@
 package sudoku.game;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Created by ra on 23.06.16.
@@ -62,6 +65,140 @@ public class SudokuGameTest {
         assert!game.colContains(7, 1);
     }
 
+    @org.junit.Test
+    public void conflicts() {
+        int filled = game.getFilledCount();
+        game.setValue(0, 0, 2); // twice in row 0 and box 0
+        game.setValue(2, 0, 2); // a third time in box 0
+        assert game.getConflictCount() == 3 && game.isConflict(0, 1) && !game.isValid(2, 0);
+        assert game.getFilledCount() == filled + 2;
+        game.setValue(0, 0, 0);
+        assert game.getConflictCount() == 2 && game.getConflictingCells()[0] == 1 && game.isValid(0, 0);
+        game.reset();
+        assert game.getConflictCount() == 0 && game.getFilledCount() == filled;
+        assert game.bTrackSolve() && game.isSolved() && game.getFilledCount() == 81;
+    }
+
+    @org.junit.Test
+    public void solveAsync() throws Exception {
+        SolveTask task = game.bTrackSolveAsync(Runnable::run, Runnable::run, 0);
+        assert task.getResult().get() && game.isSolved();
+
+        game.reset();
+        task = game.logicSolveAsync(Runnable::run, command -> {
+            game.setValue(0, 0, 1); // a move while solving, so the solution is outdated
+            command.run();
+        }, 0);
+        assert !task.getResult().get() && !game.isSolved();
+    }
+
+    @org.junit.Test
+    public void events() {
+        List<GameEvent> received = new ArrayList<>();
+        game.addListener((source, event) -> received.add(event));
+        game.setValue(0, 0, 2);
+        assert received.size() == 1 && received.get(0).getType() == GameEvent.Type.INVALID_ENTERED;
+        assert received.get(0).getRow() == 0 && received.get(0).getCol() == 0 && received.get(0).getValue() == 2;
+
+        received.clear();
+        game.batch(() -> {
+            game.setValue(0, 0, 0);
+            game.reset();
+            assert received.isEmpty();
+        });
+        assert received.size() == 2 && received.get(1) == GameEvent.of(GameEvent.Type.RESET);
+    }
+
+    @org.junit.Test
+    public void undoRedo() {
+        PackedBoard before = game.toPackedBoard();
+        SudokuGame solved = new SudokuGame(before);
+        assert solved.bTrackSolve();
+        game.setValue(0, 0, solved.getValue(0, 0) % 9 + 1); // a wrong value first
+        game.setValue(0, 0, solved.getValue(0, 0));
+        game.setValue(0, 2, solved.getValue(0, 2));
+        PackedBoard moved = game.toPackedBoard();
+        assert game.bTrackSolve() && game.isSolved();
+
+        assert game.undo() && game.toPackedBoard().equals(moved); // the whole solve is one step
+        assert game.undo() && game.getValue(0, 2) == 0 && game.getValue(0, 0) == solved.getValue(0, 0);
+        assert game.redo() && game.getValue(0, 2) == solved.getValue(0, 2);
+        assert game.undo() && game.undo() && game.undo() && !game.undo();
+        assert game.toPackedBoard().equals(before) && game.canRedo();
+
+        game.setValue(1, 1, 4); // drops the moves that could be redone
+        assert !game.canRedo() && game.getJournal().size() == 1;
+        game.reset();
+        assert game.undo() && game.getValue(1, 1) == 4;
+        assert game.replay(0).equals(before) && game.replay(1).equals(game.toPackedBoard());
+
+        SudokuGame restored = SudokuGame.restore(game.getStartBoard(), game.getJournal());
+        assert restored.toPackedBoard().equals(game.toPackedBoard());
+        assert restored.redo() && restored.getValue(1, 1) == 0;
+    }
+
+    @org.junit.Test
+    public void restoreChecked() {
+        PackedBoard start = game.getStartBoard();
+        int[][] bad = {
+                {MoveJournal.encode(0, 0, 20, false)},  // larger than the packed cell, spilled into the next one
+                {MoveJournal.encode(0, 0, 12, false)},  // larger than the board
+                {MoveJournal.encode(1, 2, 3, false)},   // overwrites an initial entry
+                {MoveJournal.encode(200, 0, 1, false)}, // no cell of the board
+                {MoveJournal.encode(0, 0, 1, false), MoveJournal.encode(0, 5, 3, false)}, // old value is 1, not 5
+        };
+        for (int[] deltas : bad) {
+            for (int position : new int[]{0, deltas.length}) { // deltas to redo are checked too
+                try {
+                    SudokuGame.restore(start, MoveJournal.of(deltas, position));
+                    assert false : Arrays.toString(deltas);
+                } catch (IllegalArgumentException expected) {
+                }
+            }
+        }
+        int[] good = {MoveJournal.encode(0, 0, 1, false), MoveJournal.encode(0, 1, 5, false)};
+        SudokuGame restored = SudokuGame.restore(start, MoveJournal.of(good, 2));
+        assert restored.getValue(0, 0) == 5 && restored.isInitial(0, 1) && restored.getValue(0, 1) == 2;
+
+        try {
+            start.set(0, 20); // 9x9 cells have 4 bits
+            assert false;
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @org.junit.Test
+    public void journalLimit() {
+        game.setJournalLimit(8);
+        for (int move = 0; move < 20; move++) {
+            game.setValue(0, 0, move % 9 + 1);
+        }
+        game.setValue(0, 0, 0);
+        assert game.getJournal().size() <= 8 && game.canUndo();
+        assert game.getStartBoard().get(0, 0) != 0; // the oldest moves were folded into it
+        assert SudokuGame.restore(game.getStartBoard(), game.getJournal()).toPackedBoard()
+                .equals(game.toPackedBoard());
+
+        PackedBoard unsolved = game.toPackedBoard();
+        assert game.bTrackSolve(); // one step of more cells than the limit stays whole
+        PackedBoard solved = game.toPackedBoard();
+        assert game.undo() && game.toPackedBoard().equals(unsolved);
+        assert game.redo() && game.toPackedBoard().equals(solved);
+        game.setValue(0, 0, 0); // folds the whole solve
+        assert game.getJournal().size() == 1 && game.undo() && !game.undo();
+        assert game.toPackedBoard().equals(solved) && game.getStartBoard().equals(solved);
+    }
+
+    @org.junit.Test
+    public void maxSize() {
+        try {
+            new SudokuGame(new int[36][36]); // values up to 36 do not fit the int masks
+            assert false;
+        } catch (IllegalArgumentException expected) {
+        }
+        assert new SudokuGame(new int[BoardState.MAX_SIZE][BoardState.MAX_SIZE]).getSize() == 25;
+    }
+
     @org.junit.Test
     public void perfectSquare() throws Exception {
         Method method = SudokuGame.class.getDeclaredMethod("isPerfectSquare", Integer.TYPE);
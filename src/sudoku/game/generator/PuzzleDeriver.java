@@ -0,0 +1,65 @@
+package sudoku.game.generator;
+
+import sudoku.game.PackedBoard;
+import sudoku.game.symmetry.Transform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Derives new puzzles of one size from a set of seed puzzles by applying a random {@link Transform}: a relabeling
+ * of the values, band and stack permutations, row and column swaps within the bands and stacks, and a
+ * transposition. A transform keeps the number of solutions and the techniques needed to solve a puzzle, so every
+ * derived puzzle has a unique solution and the grade of its seed, and deriving one takes microseconds instead of
+ * a full generation. A 9x9 seed has about 1.2 * 10^12 derived puzzles, mostly different from each other.
+ * An instance is not thread-safe, use one per thread.
+ */
+public class PuzzleDeriver {
+    private final int size;
+    private final SplittableRandom random;
+    private final List<PackedBoard> seeds = new ArrayList<>();
+
+    public PuzzleDeriver(int size, SplittableRandom random) {
+        this.size = size;
+        this.random = random;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void addSeed(int[][] puzzle) {
+        addSeed(PackedBoard.of(puzzle));
+    }
+
+    /**
+     * Add a copy of puzzle, whose fixed cells are the entries of the puzzle, to the seeds.
+     */
+    public void addSeed(PackedBoard puzzle) {
+        if (puzzle.getSize() != size) {
+            throw new IllegalArgumentException("seed of size " + puzzle.getSize() + " instead of " + size);
+        }
+        seeds.add(puzzle.copy());
+    }
+
+    public int getSeedCount() {
+        return seeds.size();
+    }
+
+    public int[][] derive() {
+        PackedBoard board = new PackedBoard(size);
+        derive(board);
+        return board.toArray();
+    }
+
+    /**
+     * Write a random transform of a random seed into board, with its entries marked as fixed.
+     */
+    public void derive(PackedBoard board) {
+        if (seeds.isEmpty()) {
+            throw new IllegalStateException("no seed puzzles");
+        }
+        Transform.random(size, random).apply(seeds.get(random.nextInt(seeds.size())), board);
+    }
+}
@@ -0,0 +1,36 @@
+package sudoku.game.generator;
+
+import sudoku.game.PackedBoard;
+import sudoku.game.solver.BacktrackSolver;
+import sudoku.game.solver.DifficultyRater;
+import sudoku.game.solver.Grade;
+import sudoku.game.symmetry.CanonicalForm;
+
+import java.util.SplittableRandom;
+
+public class PuzzleDeriverTest {
+    private static final int[][] SEED = {
+            {8, 0, 0, 0, 0, 0, 0, 0, 0},
+            {0, 0, 3, 6, 0, 0, 0, 0, 0},
+            {0, 7, 0, 0, 9, 0, 2, 0, 0},
+            {0, 5, 0, 0, 0, 7, 0, 0, 0},
+            {0, 0, 0, 0, 4, 5, 7, 0, 0},
+            {0, 0, 0, 1, 0, 0, 0, 3, 0},
+            {0, 0, 1, 0, 0, 0, 0, 6, 8},
+            {0, 0, 8, 5, 0, 0, 0, 1, 0},
+            {0, 9, 0, 0, 0, 0, 4, 0, 0},
+    };
+
+    @org.junit.Test
+    public void derive() {
+        PuzzleDeriver deriver = new PuzzleDeriver(9, new SplittableRandom(3));
+        deriver.addSeed(SEED);
+        for (int count = 0; count < 5; count++) {
+            int[][] puzzle = deriver.derive();
+            assert BacktrackSolver.hasUniqueSolution(puzzle);
+            assert DifficultyRater.grade(puzzle) == Grade.EXPERT;
+            assert CanonicalForm.of(PackedBoard.of(puzzle)).getBoard()
+                    .equals(CanonicalForm.of(PackedBoard.of(SEED)).getBoard());
+        }
+    }
+}
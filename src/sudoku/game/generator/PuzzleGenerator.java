@@ -0,0 +1,180 @@
+package sudoku.game.generator;
+
+import sudoku.game.PackedBoard;
+import sudoku.game.solver.DifficultyRater;
+import sudoku.game.solver.Grade;
+import sudoku.game.solver.MostConstrainedSearch;
+
+import java.util.SplittableRandom;
+
+/**
+ * Reusable generator for puzzles of one size with a unique solution.
+ * Puzzles are made by filling an empty board with a random solution and removing entries in random order, either
+ * down to a share of the cells, or, for a requested {@link Grade}, as long as the {@link DifficultyRater} still
+ * grades the puzzle at most that hard.
+ * All scratch buffers are allocated once, so generating into an existing board allocates nothing.
+ * The random source is passed in, which makes the generated puzzles reproducible for a given seed.
+ * An instance is not thread-safe, use one per thread.
+ */
+public class PuzzleGenerator {
+    // solutions tried for a grade before settling for the hardest puzzle below it
+    private static final int MAX_ATTEMPTS = 32;
+
+    private final int size;
+    private final SplittableRandom random;
+
+    // fills the empty board with random candidate order, and counts solutions while pruning
+    private final MostConstrainedSearch search;
+    private final PackedBoard empty;
+    private final PackedBoard work;
+    private final PackedBoard best;
+    private final int[] cellOrder;
+
+    // grades candidate puzzles while pruning, which also checks uniqueness
+    private final DifficultyRater rater;
+
+    public PuzzleGenerator(int size, SplittableRandom random) {
+        this.size = size;
+        this.random = random;
+        this.search = new MostConstrainedSearch(size);
+        this.empty = new PackedBoard(size);
+        this.work = new PackedBoard(size);
+        this.best = new PackedBoard(size);
+        this.cellOrder = new int[size * size];
+        this.rater = new DifficultyRater(size);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int[][] generate(double difficulty) {
+        int[][] board = new int[size][size];
+        generate(difficulty, board);
+        return board;
+    }
+
+    /**
+     * Write a new puzzle into board, keeping about the share difficulty of all cells as entries.
+     */
+    public void generate(double difficulty, int[][] board) {
+        generate(difficulty, work);
+        work.copyTo(board);
+    }
+
+    /**
+     * Write a new puzzle into board like {@link #generate(double, int[][])}, and mark its entries as fixed.
+     */
+    public void generate(double difficulty, PackedBoard board) {
+        fillSolution(board);
+        prune(board, difficulty);
+        board.fixEntries();
+    }
+
+    public int[][] generate(Grade grade) {
+        int[][] board = new int[size][size];
+        generate(grade, board);
+        return board;
+    }
+
+    public Grade generate(Grade grade, int[][] board) {
+        Grade reached = generate(grade, work);
+        work.copyTo(board);
+        return reached;
+    }
+
+    /**
+     * Write a new puzzle of the given grade into board and mark its entries as fixed. If none of MAX_ATTEMPTS
+     * solutions can be pruned to that grade, the hardest puzzle found below it is written instead.
+     *
+     * @return grade of the puzzle written
+     */
+    public Grade generate(Grade grade, PackedBoard board) {
+        Grade bestGrade = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            fillSolution(board);
+            Grade reached = prune(board, grade);
+            if (reached == grade) {
+                board.fixEntries();
+                return grade;
+            }
+            if (bestGrade == null || reached.compareTo(bestGrade) > 0) {
+                bestGrade = reached;
+                best.copyFrom(board);
+            }
+        }
+        board.copyFrom(best);
+        board.fixEntries();
+        return bestGrade;
+    }
+
+    private void fillSolution(PackedBoard board) {
+        search.setRandom(random);
+        search.load(empty);
+        search.search(1); // an empty board always has a solution
+        search.copySolutionTo(board);
+        search.setRandom(null);
+    }
+
+    /**
+     * Remove every entry, in random order, whose removal leaves a unique puzzle of at most the given grade.
+     *
+     * @return grade of the pruned puzzle
+     */
+    private Grade prune(PackedBoard board, Grade grade) {
+        Grade current = Grade.EASY; // a full board needs no technique at all
+        shuffleCells();
+        for (int cell : cellOrder) {
+            int value = board.get(cell);
+            board.set(cell, 0);
+            Grade rated = rater.rate(board);
+            if (rated != null && rated.compareTo(grade) <= 0) {
+                current = rated;
+            } else {
+                board.set(cell, value);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Remove entries until only the share difficulty of all cells is left, or no entry can be removed without
+     * losing uniqueness. Every cell is tried once, in random order.
+     */
+    private void prune(PackedBoard board, double difficulty) {
+        if (difficulty < 1 && difficulty > 0) {
+            int remaining = (int) (size * size * difficulty);
+            int toRemove = size * size - remaining;
+            shuffleCells();
+            for (int index = 0; index < cellOrder.length && toRemove > 0; index++) {
+                int cell = cellOrder[index];
+                boolean removed = tryRemove(board, cell);
+                toRemove = removed ? toRemove - 1 : toRemove;
+            }
+        }
+    }
+
+    private boolean tryRemove(PackedBoard board, int cell) {
+        int value = board.get(cell);
+        board.set(cell, 0);
+        // see if board still has exactly one solution, stop counting at the second one
+        if (search.load(board) && search.search(2) == 1) {
+            return true;
+        } else {
+            board.set(cell, value);
+            return false;
+        }
+    }
+
+    private void shuffleCells() {
+        for (int cell = 0; cell < cellOrder.length; cell++) {
+            cellOrder[cell] = cell;
+        }
+        for (int index = cellOrder.length - 1; index > 0; index--) {
+            int other = random.nextInt(index + 1);
+            int swap = cellOrder[index];
+            cellOrder[index] = cellOrder[other];
+            cellOrder[other] = swap;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package sudoku.game.generator;
+
+import sudoku.game.solver.Grade;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pools of ready-made puzzles, one per (grade, size).
+ * take returns a pooled puzzle right away if there is one, and only generates on the calling thread if the pool
+ * ran dry. Every take starts a background refill of the pool unless one is already running, so a pool that is
+ * used less often than it can be refilled never makes the caller wait.
+ * Hits, misses and the time the workers need per refilled puzzle are recorded.
+ * <p>
+ * derive serves puzzles without generating at all: the first puzzles it takes from the pool become seeds, and
+ * after that it returns random transforms of them, which have the same grade.
+ */
+public class PuzzlePool {
+    private static final class Key {
+        private final Grade grade;
+        private final int size;
+
+        private Key(Grade grade, int size) {
+            this.grade = grade;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return key.grade == grade && key.size == size;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * grade.hashCode() + size;
+        }
+    }
+
+    private final int capacity;
+    private final ExecutorService workers;
+    private final ConcurrentMap<Key, BlockingQueue<int[][]>> pools = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Key, AtomicBoolean> refilling = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Key, PuzzleDeriver> derivers = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder derived = new LongAdder();
+    private final LongAdder refilled = new LongAdder();
+    private final LongAdder refillNanos = new LongAdder();
+    private final AtomicLong maxRefillNanos = new AtomicLong();
+
+    /**
+     * @param capacity puzzles kept per (grade, size)
+     * @param threads  background workers refilling the pools
+     */
+    public PuzzlePool(int capacity, int threads) {
+        this.capacity = capacity;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "puzzle-pool-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true); // never keep the application alive
+            return thread;
+        });
+    }
+
+    /**
+     * Start filling the pool for (grade, size) in the background, e.g. at startup.
+     */
+    public void prefill(Grade grade, int size) {
+        scheduleRefill(new Key(grade, size));
+    }
+
+    /**
+     * @return a puzzle of the given grade and size, from the pool if available
+     */
+    public int[][] take(Grade grade, int size) {
+        Key key = new Key(grade, size);
+        int[][] puzzle = pool(key).poll();
+        if (puzzle != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            puzzle = InitialStateGenerator.generateInitialState(grade, size);
+        }
+        scheduleRefill(key);
+        return puzzle;
+    }
+
+    /**
+     * @return a puzzle of the given grade and size, derived from one of the first capacity puzzles taken
+     * for (grade, size), or one of these
+     * @see PuzzleDeriver
+     */
+    public int[][] derive(Grade grade, int size) {
+        Key key = new Key(grade, size);
+        PuzzleDeriver deriver = derivers.computeIfAbsent(key, k -> new PuzzleDeriver(size, new SplittableRandom()));
+        synchronized (deriver) {
+            if (deriver.getSeedCount() >= capacity) {
+                derived.increment();
+                return deriver.derive();
+            }
+        }
+        // take may generate on a miss, which must not hold up the other callers for this key
+        int[][] puzzle = take(grade, size);
+        synchronized (deriver) {
+            if (deriver.getSeedCount() < capacity) {
+                deriver.addSeed(puzzle);
+            }
+        }
+        return puzzle;
+    }
+
+    private BlockingQueue<int[][]> pool(Key key) {
+        return pools.computeIfAbsent(key, k -> new ArrayBlockingQueue<>(capacity));
+    }
+
+    private void scheduleRefill(Key key) {
+        AtomicBoolean running = refilling.computeIfAbsent(key, k -> new AtomicBoolean());
+        if (running.compareAndSet(false, true)) {
+            workers.execute(() -> {
+                try {
+                    refill(key);
+                } finally {
+                    running.set(false);
+                }
+                // a take after the last check of refill found the flag still set and scheduled nothing
+                if (pool(key).remainingCapacity() > 0 && !workers.isShutdown()) {
+                    scheduleRefill(key);
+                }
+            });
+        }
+    }
+
+    private void refill(Key key) {
+        BlockingQueue<int[][]> pool = pool(key);
+        while (pool.remainingCapacity() > 0) {
+            long tic = System.nanoTime();
+            int[][] puzzle = InitialStateGenerator.generateInitialState(key.grade, key.size);
+            long nanos = System.nanoTime() - tic;
+            refilled.increment();
+            refillNanos.add(nanos);
+            maxRefillNanos.accumulateAndGet(nanos, Math::max);
+            if (!pool.offer(puzzle)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return puzzles currently pooled for (grade, size)
+     */
+    public int available(Grade grade, int size) {
+        return pool(new Key(grade, size)).size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getDerived() {
+        return derived.sum();
+    }
+
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public double getAverageRefillMillis() {
+        long count = refilled.sum();
+        return count == 0 ? 0 : refillNanos.sum() / 1e6 / count;
+    }
+
+    public double getMaxRefillMillis() {
+        return maxRefillNanos.get() / 1e6;
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PuzzlePool: %d hits, %d misses (hit rate %.1f%%), %d derived, %d refilled, "
+                        + "refill avg %.3f ms, max %.3f ms", getHits(), getMisses(), getHitRate() * 100, getDerived(),
+                refilled.sum(), getAverageRefillMillis(), getMaxRefillMillis());
+    }
+}
@@ -0,0 +1,61 @@
+package sudoku.game.generator;
+
+import sudoku.game.solver.BacktrackSolver;
+import sudoku.game.solver.Grade;
+
+public class PuzzlePoolTest {
+    private PuzzlePool pool;
+
+    @org.junit.Before
+    public void setUp() {
+        pool = new PuzzlePool(2, 1);
+    }
+
+    @org.junit.After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Wait for the background refill to pool count puzzles for (grade, 9).
+     */
+    private void awaitAvailable(Grade grade, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (pool.available(grade, 9) < count) {
+            assert System.nanoTime() - deadline < 0 : "refill did not finish";
+            Thread.sleep(1);
+        }
+    }
+
+    @org.junit.Test
+    public void hitsAndMisses() throws InterruptedException {
+        assert pool.available(Grade.EASY, 9) == 0;
+        assert BacktrackSolver.hasUniqueSolution(pool.take(Grade.EASY, 9)); // generated on this thread
+        assert pool.getMisses() == 1 && pool.getHits() == 0;
+
+        awaitAvailable(Grade.EASY, 2); // the miss started a refill
+        pool.take(Grade.EASY, 9);
+        pool.take(Grade.EASY, 9);
+        assert pool.getHits() == 2 && pool.getMisses() == 1 && pool.getHitRate() > 0.6;
+        awaitAvailable(Grade.EASY, 2); // and so did the hits
+        assert pool.getAverageRefillMillis() > 0 && pool.getMaxRefillMillis() >= pool.getAverageRefillMillis();
+    }
+
+    @org.junit.Test
+    public void prefill() throws InterruptedException {
+        pool.prefill(Grade.MEDIUM, 9);
+        awaitAvailable(Grade.MEDIUM, 2);
+        assert pool.available(Grade.EASY, 9) == 0; // pools are kept per grade
+        pool.take(Grade.MEDIUM, 9);
+        assert pool.getHits() == 1 && pool.getMisses() == 0;
+    }
+
+    @org.junit.Test
+    public void derive() {
+        // the first two puzzles become seeds, the ones after them are derived
+        for (int count = 0; count < 5; count++) {
+            assert BacktrackSolver.hasUniqueSolution(pool.derive(Grade.EASY, 9));
+        }
+        assert pool.getHits() + pool.getMisses() == 2 && pool.getDerived() == 3;
+    }
+}
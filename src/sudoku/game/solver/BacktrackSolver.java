@@ -1,36 +1,128 @@
 package sudoku.game.solver;
 
-import sudoku.game.SudokuUtil;
-
-import java.time.Instant;
+import sudoku.game.BoardState;
+import sudoku.game.PackedBoard;
 
 public class BacktrackSolver {
+    /**
+     * Solve board, keeping all non-zero entries of initial fixed.
+     * Validity checks use the occupancy masks of a {@link BoardState} instead of scanning row, column and box.
+     *
+     * @return true if solved, board then holds the solution
+     */
     public static boolean solve(int[][] board, final int[][] initial, final int size) {
-        Instant tic = Instant.now();
+        BoardState state = new BoardState(size);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int value = initial[row][col];
+                if (value != 0) {
+                    if (!state.canPlace(row, col, value)) {
+                        return false; // initial entries already conflict
+                    }
+                    state.set(row, col, value);
+                }
+            }
+        }
         // start at upper left corner, the rest is recursion
-        boolean solution = solve(board, initial, size, 0, 0);
-        // System.out.println("Backtrack: " + Duration.between(tic, Instant.now()));
+        boolean solution = solve(state, initial, size, 0, 0);
+        if (solution) {
+            state.copyTo(board);
+        }
         return solution;
     }
 
-    private static boolean solve(int[][] board, final int[][] initial, int size, int row, int col) {
+    /**
+     * Solve board like {@link #solve(int[][], int[][], int)}, but always branch on the most constrained empty cell
+     * and keep the search stack on the heap, so large sparse boards neither blow up the search tree nor the
+     * thread stack.
+     *
+     * @return true if solved, board then holds the solution
+     */
+    public static boolean solveMostConstrained(int[][] board, final int[][] initial, final int size) {
+        return solveMostConstrained(board, initial, size, null);
+    }
+
+    /**
+     * Solve board like {@link #solveMostConstrained(int[][], int[][], int)}, adding the work done to stats if not
+     * null.
+     */
+    public static boolean solveMostConstrained(int[][] board, final int[][] initial, final int size,
+                                               SolverStats stats) {
+        PackedBoard packed = PackedBoard.of(initial);
+        if (!solveMostConstrained(packed, stats)) {
+            return false;
+        }
+        packed.copyTo(board);
+        return true;
+    }
+
+    /**
+     * Count the solutions of board, stopping as soon as limit solutions are found.
+     * With limit 2 this is a cheap uniqueness check. Board is not modified.
+     *
+     * @return number of solutions, at most limit. 0 if the entries of board conflict
+     */
+    public static int countSolutions(int[][] board, int limit) {
+        return countSolutions(PackedBoard.of(board), limit);
+    }
+
+    /**
+     * Solve board in place like {@link #solveMostConstrained(int[][], int[][], int)}, with its non-zero entries
+     * as initial entries.
+     */
+    public static boolean solveMostConstrained(PackedBoard board) {
+        return solveMostConstrained(board, null);
+    }
+
+    public static boolean solveMostConstrained(PackedBoard board, SolverStats stats) {
+        return solveMostConstrained(board, stats, null);
+    }
+
+    /**
+     * Solve board in place, adding the work done to stats and reporting progress to control if they are not null.
+     *
+     * @return true if solved, false if there is no solution or control stopped the search
+     */
+    public static boolean solveMostConstrained(PackedBoard board, SolverStats stats, SolveControl control) {
+        long tic = System.nanoTime();
+        MostConstrainedSearch search = new MostConstrainedSearch(board.getSize());
+        search.setStats(stats);
+        search.setControl(control);
+        boolean solved = search.load(board) && search.search(1) == 1;
+        if (solved) {
+            search.copySolutionTo(board);
+        }
+        if (stats != null) {
+            stats.addNanos(System.nanoTime() - tic);
+        }
+        return solved;
+    }
+
+    public static int countSolutions(PackedBoard board, int limit) {
+        MostConstrainedSearch search = new MostConstrainedSearch(board.getSize());
+        return search.load(board) ? search.search(limit) : 0;
+    }
+
+    public static boolean hasUniqueSolution(int[][] board) {
+        return countSolutions(board, 2) == 1;
+    }
+
+    private static boolean solve(BoardState state, final int[][] initial, int size, int row, int col) {
         if (row == size) {
             row = 0;
             if (++col == size)
                 return true;
         }
         if (initial[row][col] != 0)
-            return solve(board, initial, size, row + 1, col);
+            return solve(state, initial, size, row + 1, col);
 
-        for (int val = 1; val <= size; ++val) {
-            if (SudokuUtil.validPosition(board, size, row, col, val)) {
-                board[row][col] = val;
-                if (solve(board, initial, size, row + 1, col))
-                    return true;
-            }
+        for (int candidates = state.candidates(row, col); candidates != 0; candidates &= candidates - 1) {
+            state.set(row, col, Integer.numberOfTrailingZeros(candidates) + 1);
+            if (solve(state, initial, size, row + 1, col))
+                return true;
         }
 
-        board[row][col] = 0; // reset position! This branch was not solvable
+        state.clear(row, col); // reset position! This branch was not solvable
         return false;
     }
 }
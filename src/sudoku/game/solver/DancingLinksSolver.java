@@ -0,0 +1,260 @@
+package sudoku.game.solver;
+
+import sudoku.game.BoardState;
+import sudoku.game.PackedBoard;
+
+/**
+ * Exact cover solver (Knuth's Algorithm X with dancing links).
+ * A sudoku of size n is an exact cover problem with n^3 candidate rows (cell, value) and 4 * n^2 constraint columns:
+ * every cell is filled once, every value occurs once per row, once per column and once per box.
+ * The links are kept in flat int arrays instead of node objects, and the search always branches on the column
+ * with the fewest remaining rows, so solve times stay predictable for 16x16 and 25x25 boards.
+ */
+public class DancingLinksSolver {
+    private static final int ROOT = 0;
+
+    private final int size;
+    private final int blockSize;
+
+    // node 0 is the root, nodes 1..columns are the column headers, the rest are the candidate nodes
+    private final int columns;
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    private final int[] column;
+    private final int[] count;
+
+    // rows chosen on the current search path
+    private final int[] path;
+    private int depth;
+    private int solutions;
+
+    // search work, added to the stats of the solve if there are any
+    private long nodes;
+    private long backtracks;
+    private int maxDepth;
+
+    // rows of the first solution found, the given entries are not included
+    private final int[] solution;
+    private int solutionDepth;
+
+    private DancingLinksSolver(int size) {
+        this.size = size;
+        this.blockSize = (int) Math.sqrt(size);
+        this.columns = 4 * size * size;
+        int nodes = columns + 1 + 4 * size * size * size;
+        left = new int[nodes];
+        right = new int[nodes];
+        up = new int[nodes];
+        down = new int[nodes];
+        column = new int[nodes];
+        count = new int[columns + 1];
+        path = new int[size * size];
+        solution = new int[size * size];
+
+        for (int header = 0; header <= columns; header++) {
+            left[header] = header == 0 ? columns : header - 1;
+            right[header] = header == columns ? 0 : header + 1;
+            up[header] = header;
+            down[header] = header;
+            column[header] = header;
+        }
+        int node = columns + 1;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int box = (row / blockSize) * blockSize + col / blockSize;
+                for (int value = 0; value < size; value++) {
+                    int first = node;
+                    node = appendNode(node, first, 1 + row * size + col);
+                    node = appendNode(node, first, 1 + size * size + row * size + value);
+                    node = appendNode(node, first, 1 + 2 * size * size + col * size + value);
+                    node = appendNode(node, first, 1 + 3 * size * size + box * size + value);
+                }
+            }
+        }
+    }
+
+    private int appendNode(int node, int first, int header) {
+        column[node] = header;
+        up[node] = up[header];
+        down[node] = header;
+        down[up[header]] = node;
+        up[header] = node;
+        count[header]++;
+        left[node] = node == first ? node : node - 1;
+        right[node] = first;
+        right[left[node]] = node;
+        left[first] = node;
+        return node + 1;
+    }
+
+    /**
+     * Solve board in place. Non-zero entries are kept as given.
+     *
+     * @return true if solved, false if the given entries conflict or there is no solution
+     */
+    public static boolean solve(int[][] board, int size) {
+        return solve(board, size, null);
+    }
+
+    /**
+     * Solve board in place like {@link #solve(int[][], int)}, adding the work done to stats if not null.
+     */
+    public static boolean solve(int[][] board, int size, SolverStats stats) {
+        PackedBoard packed = PackedBoard.of(board);
+        if (!solve(packed, stats)) {
+            return false;
+        }
+        packed.copyTo(board);
+        return true;
+    }
+
+    public static boolean solve(PackedBoard board) {
+        return solve(board, null);
+    }
+
+    public static boolean solve(PackedBoard board, SolverStats stats) {
+        long tic = System.nanoTime();
+        try {
+            return solveInPlace(board, stats);
+        } finally {
+            if (stats != null) {
+                stats.addNanos(System.nanoTime() - tic);
+            }
+        }
+    }
+
+    private static boolean solveInPlace(PackedBoard board, SolverStats stats) {
+        int size = board.getSize();
+        DancingLinksSolver solver = new DancingLinksSolver(size);
+        BoardState state = new BoardState(size);
+        for (int cell = 0; cell < size * size; cell++) {
+            if (!solver.placeGiven(state, cell, board.get(cell))) {
+                return false;
+            }
+        }
+        if (solver.search(1, stats) == 0) {
+            return false;
+        }
+        for (int index = 0; index < solver.solutionDepth; index++) {
+            board.set(solver.solutionCell(index), solver.solutionValue(index));
+        }
+        return true;
+    }
+
+    /**
+     * Cover the columns of a given entry, so the search only has to deal with the empty cells.
+     *
+     * @return false if the entry conflicts with the entries given before
+     */
+    private boolean placeGiven(BoardState state, int cell, int value) {
+        if (value != 0) {
+            if ((state.cellCandidates(cell) & (1 << (value - 1))) == 0) {
+                return false;
+            }
+            state.setCell(cell, value);
+            int first = columns + 1 + 4 * (cell * size + value - 1);
+            for (int node = first; node < first + 4; node++) {
+                cover(column[node]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Run Algorithm X until limit solutions are found. The rows of the first solution are kept in solution, the
+     * work done is added to stats if not null.
+     *
+     * @return number of solutions found, at most limit
+     */
+    private int search(int limit, SolverStats stats) {
+        solutions = 0;
+        depth = 0;
+        explore(limit);
+        if (stats != null) {
+            stats.addSearch(nodes, backtracks, maxDepth);
+        }
+        return solutions;
+    }
+
+    private boolean explore(int limit) {
+        if (right[ROOT] == ROOT) {
+            if (++solutions == 1) {
+                System.arraycopy(path, 0, solution, 0, depth);
+                solutionDepth = depth;
+            }
+            return solutions >= limit;
+        }
+        int header = chooseColumn();
+        if (count[header] == 0) {
+            backtracks++;
+            return false; // dead end, some constraint can no longer be satisfied
+        }
+        cover(header);
+        boolean done = false;
+        for (int row = down[header]; row != header && !done; row = down[row]) {
+            nodes++;
+            path[depth++] = row;
+            maxDepth = Math.max(maxDepth, depth);
+            for (int node = right[row]; node != row; node = right[node]) {
+                cover(column[node]);
+            }
+            done = explore(limit);
+            for (int node = left[row]; node != row; node = left[node]) {
+                uncover(column[node]);
+            }
+            depth--;
+        }
+        if (!done) {
+            backtracks++;
+        }
+        uncover(header);
+        return done;
+    }
+
+    private int chooseColumn() {
+        int best = right[ROOT];
+        for (int header = right[best]; header != ROOT; header = right[header]) {
+            if (count[header] < count[best]) {
+                best = header;
+                if (count[best] <= 1) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    private void cover(int header) {
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+        for (int row = down[header]; row != header; row = down[row]) {
+            for (int node = right[row]; node != row; node = right[node]) {
+                up[down[node]] = up[node];
+                down[up[node]] = down[node];
+                count[column[node]]--;
+            }
+        }
+    }
+
+    private void uncover(int header) {
+        for (int row = up[header]; row != header; row = up[row]) {
+            for (int node = left[row]; node != row; node = left[node]) {
+                count[column[node]]++;
+                up[down[node]] = node;
+                down[up[node]] = node;
+            }
+        }
+        right[left[header]] = header;
+        left[right[header]] = header;
+    }
+
+    private int solutionCell(int index) {
+        return (solution[index] - columns - 1) / 4 / size;
+    }
+
+    private int solutionValue(int index) {
+        return (solution[index] - columns - 1) / 4 % size + 1;
+    }
+}
@@ -0,0 +1,65 @@
+package sudoku.game.solver;
+
+import sudoku.game.PackedBoard;
+
+/**
+ * Grades puzzles by solving them the way a person would: constraint propagation with the techniques of the
+ * {@link Propagator}, easiest first, and search only when propagation gets stuck. The grade is the hardest
+ * technique that was needed, or {@link Grade#EXPERT} if search was. Techniques used and search nodes of the last
+ * rating are kept in {@link #getStats()}, e.g. to rank puzzles within a grade.
+ * <p>
+ * Rating doubles as uniqueness check: propagation only makes forced steps, so a puzzle it solves has exactly one
+ * solution, and a stuck puzzle is searched for a second solution. An instance reuses its buffers and is not
+ * thread-safe.
+ */
+public class DifficultyRater {
+    private final Propagator propagator;
+    private final MostConstrainedSearch search;
+    private final SolverStats stats = new SolverStats();
+    private final PackedBoard partial;
+
+    public DifficultyRater(int size) {
+        this.propagator = new Propagator(size);
+        this.partial = new PackedBoard(size);
+        this.search = new MostConstrainedSearch(size);
+        propagator.setStats(stats);
+        search.setStats(stats);
+    }
+
+    /**
+     * @return grade of the puzzle, null if it has no solution or more than one
+     */
+    public Grade rate(int[][] board) {
+        stats.reset();
+        return propagator.load(board) ? rateLoaded() : null;
+    }
+
+    public Grade rate(PackedBoard board) {
+        stats.reset();
+        return propagator.load(board) ? rateLoaded() : null;
+    }
+
+    private Grade rateLoaded() {
+        switch (propagator.propagate()) {
+            case SOLVED:
+                return Grade.of(stats.getHardestTechnique());
+            case STUCK:
+                // propagation only made forced steps, so the partial board has as many solutions as the puzzle
+                propagator.copyTo(partial);
+                return search.load(partial) && search.search(2) == 1 ? Grade.EXPERT : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return techniques and search work of the last rating
+     */
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    public static Grade grade(int[][] board) {
+        return new DifficultyRater(board.length).rate(board);
+    }
+}
@@ -0,0 +1,30 @@
+package sudoku.game.solver;
+
+/**
+ * Difficulty of a puzzle with a unique solution, given by the hardest step needed to solve it.
+ */
+public enum Grade {
+    /**
+     * Naked singles only, every step is a cell with one candidate left.
+     */
+    EASY,
+    /**
+     * Needs hidden singles, a value with one place left in a row, column or box.
+     */
+    MEDIUM,
+    /**
+     * Needs naked or hidden pairs, pointing or claiming.
+     */
+    HARD,
+    /**
+     * Propagation gets stuck, the puzzle can only be finished by trial and error.
+     */
+    EXPERT;
+
+    static Grade of(Technique hardest) {
+        if (hardest == null || hardest == Technique.NAKED_SINGLE) {
+            return EASY;
+        }
+        return hardest == Technique.HIDDEN_SINGLE ? MEDIUM : HARD;
+    }
+}
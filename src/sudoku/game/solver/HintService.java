@@ -0,0 +1,201 @@
+package sudoku.game.solver;
+
+import sudoku.controller.Move;
+import sudoku.game.BoardState;
+import sudoku.game.PackedBoard;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hints for a board that changes one move at a time. The candidates come from the masks of the {@link BoardState},
+ * and the service keeps the empty cells that are down to one candidate on a stack: after a move, only the cell
+ * and its peers are looked at again, so the next naked single is found in constant time instead of by a scan of
+ * the board.
+ * <p>
+ * Without a naked single, a {@link Propagator} is run on the board and the first cell it fills is the hint, found
+ * by hidden singles, pairs, pointing or claiming. If propagation finds a contradiction, there is no hint. If it
+ * gets stuck, the hint is taken from a solution, which is kept for the following hints as long as the entries agree
+ * with it. That solve is cut off after {@link #SOLVE_TIMEOUT_MILLIS}, as a wrong entry can make the search
+ * exhaustive.
+ * <p>
+ * Call {@link #changed} after every move and {@link #reload} after the whole board changed. Not thread-safe.
+ */
+public class HintService {
+    // what a cell is known to be, kept for every cell so that transitions can be counted
+    private static final byte FILLED = 0;
+    private static final byte OPEN = 1; // empty, two or more candidates
+    private static final byte SINGLE = 2; // empty, one candidate
+    private static final byte DEAD = 3; // empty, no candidate left
+
+    public static final long SOLVE_TIMEOUT_MILLIS = 200;
+
+    private final BoardState board;
+    private final SolveCache cache;
+    private final Units units;
+    private final int size;
+
+    private final byte[] kinds;
+    private int deadCells;
+
+    // cells that became singles, each at most once; popped entries are checked, they may be singles no longer
+    private final int[] singles;
+    private final boolean[] stacked;
+    private int top;
+
+    private final PackedBoard scratch;
+    private Propagator propagator;
+    private final SolverStats stats = new SolverStats();
+
+    // a solution of the board, or null if not known, and the filled cells that disagree with it
+    private PackedBoard solution;
+    private final boolean[] wrong;
+    private int disagreeing;
+
+    private Technique lastTechnique;
+    private boolean contradiction; // found by the last propagation
+
+    /**
+     * @param cache cache the fallback solutions are looked up in and stored to
+     */
+    public HintService(BoardState board, SolveCache cache) {
+        this.board = board;
+        this.cache = cache;
+        this.size = board.getSize();
+        this.units = Units.of(size);
+        this.kinds = new byte[size * size];
+        this.singles = new int[size * size];
+        this.stacked = new boolean[size * size];
+        this.wrong = new boolean[size * size];
+        this.scratch = new PackedBoard(size);
+        reload();
+    }
+
+    /**
+     * Examine every cell again, after the whole board was replaced.
+     */
+    public void reload() {
+        deadCells = 0;
+        top = 0;
+        Arrays.fill(stacked, false);
+        Arrays.fill(kinds, FILLED);
+        for (int cell = 0; cell < kinds.length; cell++) {
+            update(cell);
+        }
+        solution = null;
+    }
+
+    /**
+     * Examine the cell at (row, col) and its peers again, after the entry of the cell changed.
+     */
+    public void changed(int row, int col) {
+        int cell = row * size + col;
+        update(cell);
+        for (int peer : units.peers[cell]) {
+            update(peer);
+        }
+        if (solution != null) {
+            int value = board.getCell(cell);
+            boolean disagrees = value != 0 && value != solution.get(cell);
+            if (disagrees != wrong[cell]) {
+                wrong[cell] = disagrees;
+                disagreeing += disagrees ? 1 : -1;
+            }
+        }
+    }
+
+    private void update(int cell) {
+        byte kind;
+        if (board.getCell(cell) != 0) {
+            kind = FILLED;
+        } else {
+            int candidates = board.cellCandidates(cell);
+            kind = candidates == 0 ? DEAD : (candidates & (candidates - 1)) == 0 ? SINGLE : OPEN;
+        }
+        byte old = kinds[cell];
+        if (old == kind) {
+            return;
+        }
+        kinds[cell] = kind;
+        deadCells += (kind == DEAD ? 1 : 0) - (old == DEAD ? 1 : 0);
+        if (kind == SINGLE && !stacked[cell]) {
+            stacked[cell] = true;
+            singles[top++] = cell;
+        }
+    }
+
+    /**
+     * @return technique that found the last hint: NAKED_SINGLE, the hardest technique the propagation needed, or
+     * null if the hint was taken from a solution
+     */
+    public Technique getLastTechnique() {
+        return lastTechnique;
+    }
+
+    /**
+     * @return the next hint, or null if the board is full or has no solution
+     */
+    public Move next() {
+        if (deadCells > 0) {
+            return null; // some cell has no candidate left, every hint would be built on a wrong entry
+        }
+        while (top > 0) {
+            int cell = singles[top - 1];
+            if (kinds[cell] == SINGLE) {
+                // left on the stack: it stays the next hint until it is entered
+                lastTechnique = Technique.NAKED_SINGLE;
+                return new Move(cell / size, cell % size,
+                        Integer.numberOfTrailingZeros(board.cellCandidates(cell)) + 1);
+            }
+            stacked[cell] = false;
+            top--;
+        }
+        if (board.isFull()) {
+            return null;
+        }
+        Move hint = propagated();
+        return hint != null || contradiction ? hint : fromSolution();
+    }
+
+    private Move propagated() {
+        if (propagator == null) {
+            propagator = new Propagator(size);
+            propagator.setStats(stats);
+        }
+        board.copyTo(scratch);
+        stats.reset();
+        contradiction = !propagator.load(scratch) || propagator.propagate() == Propagator.Status.CONTRADICTION;
+        if (contradiction) {
+            return null; // some entry is wrong, no solution to take a hint from
+        }
+        for (int cell = 0; cell < kinds.length; cell++) {
+            int value = propagator.getValue(cell / size, cell % size);
+            if (kinds[cell] != FILLED && value != 0) {
+                lastTechnique = stats.getHardestTechnique();
+                return new Move(cell / size, cell % size, value);
+            }
+        }
+        return null;
+    }
+
+    private Move fromSolution() {
+        if (solution == null || disagreeing > 0) {
+            board.copyTo(scratch);
+            SolveControl control = new SolveControl(SOLVE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            if (!cache.solve(scratch, entries -> BacktrackSolver.solveMostConstrained(entries, null, control))) {
+                solution = null;
+                return null;
+            }
+            solution = scratch.copy();
+            Arrays.fill(wrong, false); // a solution of the current board agrees with all entries
+            disagreeing = 0;
+        }
+        for (int cell = 0; cell < kinds.length; cell++) {
+            if (kinds[cell] != FILLED) {
+                lastTechnique = null;
+                return new Move(cell / size, cell % size, solution.get(cell));
+            }
+        }
+        return null;
+    }
+}
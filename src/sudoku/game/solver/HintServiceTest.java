@@ -0,0 +1,74 @@
+package sudoku.game.solver;
+
+import sudoku.controller.Move;
+import sudoku.game.BoardState;
+
+public class HintServiceTest {
+    private static final int[][] PUZZLE = {
+            {8, 0, 0, 0, 0, 0, 0, 0, 0},
+            {0, 0, 3, 6, 0, 0, 0, 0, 0},
+            {0, 7, 0, 0, 9, 0, 2, 0, 0},
+            {0, 5, 0, 0, 0, 7, 0, 0, 0},
+            {0, 0, 0, 0, 4, 5, 7, 0, 0},
+            {0, 0, 0, 1, 0, 0, 0, 3, 0},
+            {0, 0, 1, 0, 0, 0, 0, 6, 8},
+            {0, 0, 8, 5, 0, 0, 0, 1, 0},
+            {0, 9, 0, 0, 0, 0, 4, 0, 0},
+    };
+
+    @org.junit.Test
+    public void solveAll() {
+        BoardState board = new BoardState(PUZZLE);
+        HintService hints = new HintService(board, new SolveCache(4));
+        boolean fromSolution = false;
+        for (Move hint = hints.next(); hint != null; hint = hints.next()) {
+            assert board.get(hint.row, hint.col) == 0 && board.canPlace(hint.row, hint.col, hint.value);
+            fromSolution |= hints.getLastTechnique() == null; // the puzzle needs trial and error
+            board.set(hint.row, hint.col, hint.value);
+            hints.changed(hint.row, hint.col);
+        }
+        assert board.isSolved() && fromSolution;
+
+        int value = board.get(0, 2);
+        board.set(0, 1, 0);
+        board.set(0, 2, 0);
+        hints.reload();
+        Move hint = hints.next();
+        assert hints.getLastTechnique() == Technique.NAKED_SINGLE && board.canPlace(hint.row, hint.col, hint.value);
+        board.set(0, 1, value); // wrong entry: no candidate left for (0, 2)
+        hints.changed(0, 1);
+        assert hints.next() == null;
+    }
+
+    @org.junit.Test
+    public void contradiction() {
+        int[][] solution = new int[9][9];
+        assert BacktrackSolver.solveMostConstrained(solution, PUZZLE, 9);
+        // a wrong entry that leaves every cell a candidate, but that propagation refutes
+        for (int cell = 0; cell < 81; cell++) {
+            int row = cell / 9;
+            int col = cell % 9;
+            for (int value = 1; value <= 9 && PUZZLE[row][col] == 0; value++) {
+                BoardState board = new BoardState(PUZZLE);
+                if (value == solution[row][col] || !board.canPlace(row, col, value)) {
+                    continue;
+                }
+                board.set(row, col, value);
+                boolean dead = false;
+                for (int other = 0; other < 81; other++) {
+                    dead |= board.getCell(other) == 0 && board.cellCandidates(other) == 0;
+                }
+                Propagator propagator = new Propagator(9);
+                if (dead || !propagator.load(board.toArray())
+                        || propagator.propagate() != Propagator.Status.CONTRADICTION) {
+                    continue;
+                }
+                SolveCache cache = new SolveCache(4);
+                HintService hints = new HintService(board, cache);
+                assert hints.next() == null && cache.getMisses() == 0; // no search for a solution
+                return;
+            }
+        }
+        assert false : "no refutable entry";
+    }
+}
@@ -1,100 +1,79 @@
 package sudoku.game.solver;
 
-import sudoku.controller.Move;
-import sudoku.game.SudokuUtil;
-
-import java.time.Instant;
-
-import static sudoku.game.SudokuUtil.isFull;
+import sudoku.game.PackedBoard;
 
 public class LogicSolver {
     /**
-     * This solver finds places where only one number is possible, and falls back on backtracking when no unique found.
+     * This solver places values by constraint propagation (naked and hidden singles, naked and hidden pairs,
+     * pointing and claiming), and falls back on backtracking when propagation gets stuck.
      */
     public static boolean solve(int[][] board, int size) {
-        Instant tic = Instant.now();
-        if (solveHelper(board, size)) {
-            return true;
-        } else {
-            int[][] copy = new int[size][size];
-            for (int row = 0; row < size; row++) {
-                System.arraycopy(board[row], 0, copy[row], 0, size);
-            }
-            boolean solution = BacktrackSolver.solve(board, copy, size);
-            // System.out.println("Logic: " + Duration.between(tic, Instant.now()));
-            return solution;
-        }
+        return solve(board, size, null);
     }
 
-    private static boolean solveHelper(int[][] board, int size) {
-        boolean change = true;
-        while (!isFull(board) && change) {
-            change = false;
-            boolean[][][] occurrences = new boolean[size][size][size];
-            for (int row = 0; row < size; row++) {
-                for (int col = 0; col < size; col++) {
-                    if (board[row][col] == 0) {
-                        for (int value = 0; value < size; value++) {
-                            occurrences[row][col][value] = occurs(board, size, row, col, value + 1);
-                        }
-                        int value = onlyOne(occurrences[row][col]);
-                        if (value == -1) {
-                            System.err.println("no vacant slots!");
-                            return false;
-                        } else if (value > 0) {
-                            board[row][col] = value;
-                            change = true;
-                        }
-
-                    }
-                }
-            }
-        }
-        // if board is not full, there was a non-unique situation. Probably, the board has still been partially solved
-        return isFull(board);
+    /**
+     * Solve board like {@link #solve(int[][], int)}, counting the techniques used, the search work of the fallback
+     * and the time in stats if not null.
+     */
+    public static boolean solve(int[][] board, int size, SolverStats stats) {
+        return solve(board, size, stats, null);
     }
 
+    /**
+     * Solve board like {@link #solve(PackedBoard, SolverStats, SolveControl)}. Board keeps the entries found by
+     * propagation even if it is not solved.
+     */
+    public static boolean solve(int[][] board, int size, SolverStats stats, SolveControl control) {
+        PackedBoard packed = PackedBoard.of(board);
+        boolean solved = solve(packed, stats, control);
+        packed.copyTo(board);
+        return solved;
+    }
 
-    private static int onlyOne(boolean[] booleans) {
-        int count = 0;
-        int value = -1;
-        for (int index = 0; index < booleans.length; index++) {
-            if (!booleans[index]) { // booleans is false at index
-                count++;
-                value = index + 1;
-            }
-        }
-        if (count == 1) { // there was only one!
-            return value;
-        } else if (count == 0) { // all numbers taken, invalid board!
-            return -1;
-        } else {
-            return 0; // not just one
-        }
+    /**
+     * Solve board in place like {@link #solve(int[][], int)}.
+     */
+    public static boolean solve(PackedBoard board) {
+        return solve(board, null);
     }
 
-    private static boolean occurs(int[][] board, int size, int row, int col, int value) {
-        return !SudokuUtil.validPosition(board, size, row, col, value);
+    public static boolean solve(PackedBoard board, SolverStats stats) {
+        return solve(board, stats, null);
     }
 
-    public static Move createHint(int[][] board, int size) {
-        boolean[][][] occurrences = new boolean[size][size][size];
-        for (int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
-                if (board[row][col] == 0) {
-                    for (int value = 0; value < size; value++) {
-                        occurrences[row][col][value] = occurs(board, size, row, col, value + 1);
-                    }
-                    int value = onlyOne(occurrences[row][col]);
-                    if (value == -1) {
-                        System.err.println("no vacant slots!");
-                        return null;
-                    } else if (value > 0) {
-                        return new Move(row, col, value);
+    /**
+     * Solve board in place, counting into stats and reporting the progress of the backtracking fallback to
+     * control if they are not null.
+     *
+     * @return true if solved, false if there is no solution or control stopped the search
+     */
+    public static boolean solve(PackedBoard board, SolverStats stats, SolveControl control) {
+        long tic = System.nanoTime();
+        Propagator propagator = new Propagator(board.getSize());
+        propagator.setStats(stats);
+        boolean solved = false;
+        if (propagator.load(board)) {
+            Propagator.Status status = propagator.propagate();
+            if (status == Propagator.Status.CONTRADICTION) {
+                System.err.println("no vacant slots!");
+            } else {
+                propagator.copyTo(board);
+                if (status == Propagator.Status.SOLVED) {
+                    solved = true;
+                } else {
+                    MostConstrainedSearch search = new MostConstrainedSearch(board.getSize());
+                    search.setStats(stats);
+                    search.setControl(control);
+                    solved = search.load(board) && search.search(1) == 1;
+                    if (solved) {
+                        search.copySolutionTo(board);
                     }
                 }
             }
         }
-        return null;
+        if (stats != null) {
+            stats.addNanos(System.nanoTime() - tic);
+        }
+        return solved;
     }
 }
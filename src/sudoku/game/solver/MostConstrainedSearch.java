@@ -0,0 +1,226 @@
+package sudoku.game.solver;
+
+import sudoku.game.BoardState;
+import sudoku.game.PackedBoard;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Backtracking search that always continues with the empty cell that has the fewest remaining candidates
+ * (minimum remaining values). A cell without candidates ends the branch right away.
+ * The search keeps its own stack of (cell, untried candidates) instead of recursing, so the depth is only
+ * bounded by the number of cells, not by the thread stack. An instance can be reused for many boards of its size.
+ */
+public class MostConstrainedSearch {
+    private static final int STOP_CHECK_INTERVAL = 1024;
+
+    private final int size;
+    private final BoardState state;
+
+    // empty cells of the loaded board, the first depth entries are the ones assigned on the current path
+    private final int[] empty;
+    private int emptyCount;
+
+    private final int[] stackCandidates;
+    private int depth;
+
+    private final int[] solution;
+
+    // polled every STOP_CHECK_INTERVAL nodes, so other threads can end a running search
+    private AtomicBoolean stopFlag;
+    private SolveControl control;
+
+    // if set, the candidates of a cell are tried in random order instead of ascending
+    private SplittableRandom random;
+
+    // if set, nodes, backtracks (cells or branches that ran out of candidates) and depth of every search are
+    // added to it
+    private SolverStats stats;
+    private long backtracks;
+    private int maxDepth;
+
+    public MostConstrainedSearch(int size) {
+        this.size = size;
+        this.state = new BoardState(size);
+        this.empty = new int[size * size];
+        this.stackCandidates = new int[size * size];
+        this.solution = new int[size * size];
+    }
+
+    /**
+     * Let search return early, with the solutions found so far, once flag is set.
+     */
+    public void setStopFlag(AtomicBoolean flag) {
+        this.stopFlag = flag;
+    }
+
+    /**
+     * Report the nodes explored to control while searching, and return early, without further solutions, once
+     * control is stopped.
+     */
+    public void setControl(SolveControl control) {
+        this.control = control;
+    }
+
+    /**
+     * Try candidates in an order drawn from random, e.g. to fill an empty board with a random solution.
+     * Null restores the ascending order.
+     */
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
+    public void setStats(SolverStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Load the non-zero entries of board as fixed cells.
+     *
+     * @return false if these entries already conflict
+     */
+    public boolean load(int[][] board) {
+        return load(PackedBoard.of(board));
+    }
+
+    public boolean load(PackedBoard board) {
+        state.clearAll();
+        emptyCount = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            int value = board.get(cell);
+            if (value == 0) {
+                empty[emptyCount++] = cell;
+            } else if ((state.cellCandidates(cell) & (1 << (value - 1))) != 0) {
+                state.setCell(cell, value);
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Search the loaded board until limit solutions are found or the search space is exhausted.
+     *
+     * @return number of solutions found, at most limit
+     */
+    public int search(int limit) {
+        int found = 0;
+        long nodes = 0;
+        depth = 0;
+        backtracks = 0;
+        maxDepth = 0;
+        try {
+            while (true) {
+                if (++nodes % STOP_CHECK_INTERVAL == 0 && stopRequested()) {
+                    return found;
+                }
+                int chosen = chooseCell();
+                if (chosen < 0) { // no empty cell left
+                    if (++found == 1) {
+                        for (int cell = 0; cell < size * size; cell++) {
+                            solution[cell] = state.getCell(cell);
+                        }
+                    }
+                    if (found >= limit) {
+                        return found;
+                    }
+                } else if (chosen < emptyCount) { // cell with candidates, push it
+                    int swap = empty[depth];
+                    empty[depth] = empty[chosen];
+                    empty[chosen] = swap;
+                    stackCandidates[depth] = state.cellCandidates(empty[depth]);
+                    depth++;
+                    maxDepth = Math.max(maxDepth, depth);
+                } else { // dead end, some cell has no candidates left
+                    backtracks++;
+                }
+
+                if (!advance()) {
+                    return found;
+                }
+            }
+        } finally {
+            if (stats != null) {
+                stats.addSearch(nodes, backtracks, maxDepth);
+            }
+            if (control != null) {
+                control.poll(nodes % STOP_CHECK_INTERVAL);
+            }
+        }
+    }
+
+    private boolean stopRequested() {
+        boolean stop = control != null && control.poll(STOP_CHECK_INTERVAL);
+        return stop || stopFlag != null && stopFlag.get();
+    }
+
+    /**
+     * @return index into empty of the most constrained unassigned cell, -1 if all cells are assigned,
+     * emptyCount if some cell has no candidates
+     */
+    private int chooseCell() {
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        for (int index = depth; index < emptyCount; index++) {
+            int count = Integer.bitCount(state.cellCandidates(empty[index]));
+            if (count < bestCount) {
+                if (count == 0) {
+                    return emptyCount;
+                }
+                best = index;
+                bestCount = count;
+                if (count == 1) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Assign the next untried candidate of the topmost stack cell, popping exhausted cells.
+     *
+     * @return false if the stack ran empty, i.e. the search space is exhausted
+     */
+    private boolean advance() {
+        while (depth > 0) {
+            int top = depth - 1;
+            int candidates = stackCandidates[top];
+            if (candidates == 0) {
+                state.setCell(empty[top], 0);
+                depth--;
+                backtracks++;
+            } else {
+                int bit = random == null ? candidates & -candidates : randomBit(candidates);
+                stackCandidates[top] = candidates ^ bit;
+                state.setCell(empty[top], Integer.numberOfTrailingZeros(bit) + 1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int randomBit(int candidates) {
+        for (int skip = random.nextInt(Integer.bitCount(candidates)); skip > 0; skip--) {
+            candidates &= candidates - 1;
+        }
+        return candidates & -candidates;
+    }
+
+    /**
+     * Write the first solution found by the last search into board.
+     */
+    public void copySolutionTo(int[][] board) {
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(solution, row * size, board[row], 0, size);
+        }
+    }
+
+    public void copySolutionTo(PackedBoard board) {
+        for (int cell = 0; cell < size * size; cell++) {
+            board.set(cell, solution[cell]);
+        }
+    }
+}
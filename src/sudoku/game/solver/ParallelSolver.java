@@ -0,0 +1,213 @@
+package sudoku.game.solver;
+
+import sudoku.game.BoardState;
+import sudoku.game.PackedBoard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fork/join solver for large boards.
+ * The top levels of the search tree are split into one task per candidate of the most constrained cell, until
+ * there are a few tasks per worker of the pool. Each task then runs a sequential {@link MostConstrainedSearch}.
+ * Idle workers steal pending tasks, and all tasks stop as soon as enough solutions are found.
+ */
+public class ParallelSolver {
+    // leaf tasks per worker, more leaves balance better but cost more board copies
+    private static final int LEAVES_PER_WORKER = 8;
+
+    public static boolean solve(int[][] board, int size) {
+        return solve(board, size, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Solve board in place. Non-zero entries are kept as given.
+     *
+     * @return true if solved, false if the given entries conflict or there is no solution
+     */
+    public static boolean solve(int[][] board, int size, ForkJoinPool pool) {
+        PackedBoard packed = PackedBoard.of(board);
+        if (!solve(packed, pool)) {
+            return false;
+        }
+        packed.copyTo(board);
+        return true;
+    }
+
+    public static boolean solve(PackedBoard board) {
+        return solve(board, ForkJoinPool.commonPool());
+    }
+
+    public static boolean solve(PackedBoard board, ForkJoinPool pool) {
+        int size = board.getSize();
+        Job job = new Job(size, 1, pool.getParallelism());
+        if (!job.run(given(board), pool)) {
+            return false;
+        }
+        for (int cell = 0; cell < size * size; cell++) {
+            board.set(cell, job.first[cell / size][cell % size]);
+        }
+        return true;
+    }
+
+    public static int countSolutions(int[][] board, int limit) {
+        return countSolutions(board, limit, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Count the solutions of board on all workers of pool, stopping as soon as limit solutions are found.
+     * Board is not modified.
+     *
+     * @return number of solutions, at most limit. 0 if the entries of board conflict
+     */
+    public static int countSolutions(int[][] board, int limit, ForkJoinPool pool) {
+        Job job = new Job(board.length, limit, pool.getParallelism());
+        job.run(given(PackedBoard.of(board)), pool);
+        return Math.min(job.solutions.get(), limit);
+    }
+
+    /**
+     * @return state with the entries of board, null if they conflict
+     */
+    private static BoardState given(PackedBoard board) {
+        int size = board.getSize();
+        BoardState state = new BoardState(size);
+        for (int cell = 0; cell < size * size; cell++) {
+            int value = board.get(cell);
+            if (value != 0) {
+                if ((state.cellCandidates(cell) & (1 << (value - 1))) == 0) {
+                    return null;
+                }
+                state.setCell(cell, value);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * State shared by all tasks of one solve.
+     */
+    private static final class Job {
+        private final int size;
+        private final int limit;
+        private final int targetLeaves;
+        private final AtomicBoolean stop = new AtomicBoolean();
+        private final AtomicInteger solutions = new AtomicInteger();
+        private volatile int[][] first;
+
+        private Job(int size, int limit, int parallelism) {
+            this.size = size;
+            this.limit = limit;
+            this.targetLeaves = parallelism * LEAVES_PER_WORKER;
+        }
+
+        /**
+         * @param state the given entries, null if they conflict
+         * @return true if at least one solution was found
+         */
+        private boolean run(BoardState state, ForkJoinPool pool) {
+            if (state == null) {
+                return false;
+            }
+            pool.invoke(new Branch(this, state.toArray(), 1));
+            return first != null;
+        }
+
+        private void searchSequential(int[][] board) {
+            int remaining = limit - solutions.get();
+            if (remaining <= 0) {
+                return;
+            }
+            MostConstrainedSearch search = new MostConstrainedSearch(size);
+            search.setStopFlag(stop);
+            search.load(board);
+            int found = search.search(remaining);
+            if (found > 0) {
+                int[][] solution = new int[size][size];
+                search.copySolutionTo(solution);
+                record(found, solution);
+            }
+        }
+
+        private void record(int found, int[][] solution) {
+            if (first == null) {
+                synchronized (this) {
+                    if (first == null) {
+                        first = solution;
+                    }
+                }
+            }
+            if (solutions.addAndGet(found) >= limit) {
+                stop.set(true);
+            }
+        }
+    }
+
+    /**
+     * One node of the split part of the search tree. Its board is consistent and owned by the task.
+     */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private static final class Branch extends RecursiveAction {
+        private final Job job;
+        private final int[][] board;
+        private final int leaves;
+
+        private Branch(Job job, int[][] board, int leaves) {
+            this.job = job;
+            this.board = board;
+            this.leaves = leaves;
+        }
+
+        @Override
+        protected void compute() {
+            if (job.stop.get()) {
+                return;
+            }
+            if (leaves >= job.targetLeaves) {
+                job.searchSequential(board);
+                return;
+            }
+            BoardState state = new BoardState(board);
+            int size = job.size;
+            int bestCell;
+            int bestCandidates;
+            while (true) {
+                bestCell = -1;
+                bestCandidates = 0;
+                for (int cell = 0; cell < size * size; cell++) {
+                    if (state.getCell(cell) == 0) {
+                        int candidates = state.cellCandidates(cell);
+                        if (bestCell < 0 || Integer.bitCount(candidates) < Integer.bitCount(bestCandidates)) {
+                            bestCell = cell;
+                            bestCandidates = candidates;
+                            if (candidates == 0) {
+                                return; // dead end
+                            }
+                        }
+                    }
+                }
+                if (bestCell < 0) { // board is full
+                    job.record(1, state.toArray());
+                    return;
+                }
+                if (Integer.bitCount(bestCandidates) > 1) {
+                    break;
+                }
+                // forced cell, fill it in here instead of forking a single child
+                state.setCell(bestCell, Integer.numberOfTrailingZeros(bestCandidates) + 1);
+            }
+            int branching = Integer.bitCount(bestCandidates);
+            List<Branch> children = new ArrayList<>(branching);
+            for (int mask = bestCandidates; mask != 0; mask &= mask - 1) {
+                int[][] child = state.toArray();
+                child[bestCell / size][bestCell % size] = Integer.numberOfTrailingZeros(mask) + 1;
+                children.add(new Branch(job, child, leaves * branching));
+            }
+            invokeAll(children);
+        }
+    }
+}
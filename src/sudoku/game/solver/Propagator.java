@@ -0,0 +1,404 @@
+package sudoku.game.solver;
+
+import sudoku.game.BoardState;
+import sudoku.game.PackedBoard;
+
+import java.util.Arrays;
+
+/**
+ * Constraint propagation on candidate bitmasks.
+ * Every empty cell keeps a mask of its remaining candidates. Placing a value removes it from the peers of the
+ * cell right away, and a cell that is down to one candidate is queued as naked single, so candidates never have
+ * to be recomputed from the board.
+ * When no naked single is queued, the techniques hidden single, naked pair, hidden pair, pointing and claiming
+ * are tried in this order, going back to the singles after every change.
+ * All buffers are allocated once per instance, propagation itself allocates nothing.
+ * The techniques are package-private so that each can be run on its own in tests.
+ */
+public class Propagator {
+    public enum Status {
+        SOLVED,
+        STUCK,
+        CONTRADICTION
+    }
+
+    private final int size;
+    private final int cellCount;
+    private final int fullMask;
+    private final Units units;
+
+    private final int[] values;
+    private final int[] candidates;
+    private int filled;
+    private boolean contradiction;
+
+    // cells that are down to one candidate, each cell is queued at most once per load
+    private final int[] queue;
+    private int head;
+    private int tail;
+
+    // if set, every step of a technique that made progress is counted in it
+    private SolverStats stats;
+
+    // scratch buffers for the unit scans, indexed by value - 1
+    private final int[] positions;
+    private final int[] rowsOfValue;
+    private final int[] colsOfValue;
+    private final int[] boxesOfValue;
+
+    public Propagator(int size) {
+        if (size < 1 || size > BoardState.MAX_SIZE) {
+            throw new IllegalArgumentException("board size " + size + " out of range 1.." + BoardState.MAX_SIZE);
+        }
+        this.size = size;
+        this.cellCount = size * size;
+        this.fullMask = (1 << size) - 1;
+        this.units = Units.of(size);
+        this.values = new int[cellCount];
+        this.candidates = new int[cellCount];
+        this.queue = new int[cellCount];
+        this.positions = new int[size];
+        this.rowsOfValue = new int[size];
+        this.colsOfValue = new int[size];
+        this.boxesOfValue = new int[size];
+    }
+
+    public void setStats(SolverStats stats) {
+        this.stats = stats;
+    }
+
+    private void count(Technique technique) {
+        if (stats != null) {
+            stats.found(technique);
+        }
+    }
+
+    /**
+     * Replace the current state by board, placing all of its non-zero entries.
+     *
+     * @return false if the entries of board contradict each other
+     */
+    public boolean load(int[][] board) {
+        return load(PackedBoard.of(board));
+    }
+
+    public boolean load(PackedBoard board) {
+        clear();
+        for (int cell = 0; cell < size * size; cell++) {
+            int value = board.get(cell);
+            if (value != 0) {
+                assign(cell, value);
+                if (contradiction) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void clear() {
+        Arrays.fill(values, 0);
+        Arrays.fill(candidates, fullMask);
+        filled = 0;
+        head = 0;
+        tail = 0;
+        contradiction = false;
+    }
+
+    public void copyTo(int[][] board) {
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(values, row * size, board[row], 0, size);
+        }
+    }
+
+    public void copyTo(PackedBoard board) {
+        for (int cell = 0; cell < size * size; cell++) {
+            board.set(cell, values[cell]);
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getValue(int row, int col) {
+        return values[row * size + col];
+    }
+
+    /**
+     * @return remaining candidates of an empty cell as bitmask, bit (value - 1) set if value is possible
+     */
+    public int getCandidates(int row, int col) {
+        return candidates[row * size + col];
+    }
+
+    public boolean isSolved() {
+        return filled == cellCount && !contradiction;
+    }
+
+    public boolean hasContradiction() {
+        return contradiction;
+    }
+
+    /**
+     * Place value at (row, col) and update the candidates of all peers. Does not propagate further.
+     *
+     * @return false if the placement contradicts the current candidates
+     */
+    public boolean place(int row, int col, int value) {
+        int cell = row * size + col;
+        if (values[cell] != 0) {
+            return values[cell] == value;
+        }
+        assign(cell, value);
+        return !contradiction;
+    }
+
+    /**
+     * Apply all techniques until the board is solved, a contradiction is found or no technique makes progress.
+     */
+    public Status propagate() {
+        while (true) {
+            drainQueue();
+            if (contradiction) {
+                return Status.CONTRADICTION;
+            }
+            if (filled == cellCount) {
+                return Status.SOLVED;
+            }
+            boolean changed = hiddenSingles()
+                    || nakedPairs()
+                    || hiddenPairs()
+                    || pointing()
+                    || claiming();
+            if (contradiction) {
+                return Status.CONTRADICTION;
+            }
+            if (!changed) {
+                return Status.STUCK;
+            }
+        }
+    }
+
+    private void assign(int cell, int value) {
+        int bit = 1 << (value - 1);
+        if ((candidates[cell] & bit) == 0) {
+            contradiction = true;
+            return;
+        }
+        values[cell] = value;
+        candidates[cell] = 0;
+        filled++;
+        for (int peer : units.peers[cell]) {
+            eliminate(peer, bit);
+        }
+    }
+
+    /**
+     * Remove the values in mask from the candidates of cell.
+     *
+     * @return true if at least one candidate was removed
+     */
+    private boolean eliminate(int cell, int mask) {
+        int remaining = candidates[cell];
+        if ((remaining & mask) == 0) {
+            return false;
+        }
+        remaining &= ~mask;
+        candidates[cell] = remaining;
+        if (remaining == 0) {
+            contradiction = true;
+        } else if ((remaining & (remaining - 1)) == 0) {
+            queue[tail++] = cell;
+        }
+        return true;
+    }
+
+    private void drainQueue() {
+        while (head < tail && !contradiction) {
+            int cell = queue[head++];
+            if (values[cell] == 0) {
+                assign(cell, Integer.numberOfTrailingZeros(candidates[cell]) + 1);
+                count(Technique.NAKED_SINGLE);
+            }
+        }
+    }
+
+    /**
+     * A value that fits into only one cell of a unit has to go there.
+     */
+    boolean hiddenSingles() {
+        boolean changed = false;
+        for (int[] unit : units.units) {
+            int once = 0;
+            int twice = 0;
+            int placed = 0;
+            for (int cell : unit) {
+                int mask = candidates[cell];
+                twice |= once & mask;
+                once |= mask;
+                if (values[cell] != 0) {
+                    placed |= 1 << (values[cell] - 1);
+                }
+            }
+            if ((once | placed) != fullMask) {
+                contradiction = true; // some value has no place left in this unit
+                return false;
+            }
+            int single = once & ~twice;
+            for (int cell : unit) {
+                int hit = candidates[cell] & single;
+                if (hit != 0) {
+                    if ((hit & (hit - 1)) != 0) {
+                        contradiction = true; // two values need this very cell
+                        return false;
+                    }
+                    assign(cell, Integer.numberOfTrailingZeros(hit) + 1);
+                    if (contradiction) {
+                        return false;
+                    }
+                    count(Technique.HIDDEN_SINGLE);
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Two cells of a unit with the same two candidates take these values from all other cells of the unit.
+     */
+    boolean nakedPairs() {
+        boolean changed = false;
+        for (int[] unit : units.units) {
+            for (int first = 0; first < size; first++) {
+                int pair = candidates[unit[first]];
+                if (Integer.bitCount(pair) != 2) {
+                    continue;
+                }
+                for (int second = first + 1; second < size; second++) {
+                    if (candidates[unit[second]] == pair) {
+                        boolean eliminated = false;
+                        for (int other = 0; other < size; other++) {
+                            if (other != first && other != second) {
+                                eliminated |= eliminate(unit[other], pair);
+                            }
+                        }
+                        if (eliminated) {
+                            count(Technique.NAKED_PAIR);
+                            changed = true;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Two values that fit into the same two cells of a unit only, and nowhere else in it, remove all other
+     * candidates from these cells.
+     */
+    boolean hiddenPairs() {
+        boolean changed = false;
+        for (int[] unit : units.units) {
+            Arrays.fill(positions, 0);
+            for (int index = 0; index < size; index++) {
+                for (int mask = candidates[unit[index]]; mask != 0; mask &= mask - 1) {
+                    positions[Integer.numberOfTrailingZeros(mask)] |= 1 << index;
+                }
+            }
+            for (int first = 0; first < size; first++) {
+                if (Integer.bitCount(positions[first]) != 2) {
+                    continue;
+                }
+                for (int second = first + 1; second < size; second++) {
+                    if (positions[second] == positions[first]) {
+                        int keep = (1 << first) | (1 << second);
+                        boolean eliminated = false;
+                        for (int mask = positions[first]; mask != 0; mask &= mask - 1) {
+                            eliminated |= eliminate(unit[Integer.numberOfTrailingZeros(mask)], ~keep);
+                        }
+                        if (eliminated) {
+                            count(Technique.HIDDEN_PAIR);
+                            changed = true;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * A value whose candidates within a box all lie in one row (column) can be removed from the rest of that
+     * row (column).
+     */
+    boolean pointing() {
+        boolean changed = false;
+        for (int box = 0; box < size; box++) {
+            int[] boxCells = units.units[2 * size + box];
+            Arrays.fill(rowsOfValue, 0);
+            Arrays.fill(colsOfValue, 0);
+            for (int cell : boxCells) {
+                for (int mask = candidates[cell]; mask != 0; mask &= mask - 1) {
+                    int value = Integer.numberOfTrailingZeros(mask);
+                    rowsOfValue[value] |= 1 << units.rowOf[cell];
+                    colsOfValue[value] |= 1 << units.colOf[cell];
+                }
+            }
+            for (int value = 0; value < size; value++) {
+                int bit = 1 << value;
+                boolean eliminated = false;
+                if (Integer.bitCount(rowsOfValue[value]) == 1) {
+                    for (int cell : units.units[Integer.numberOfTrailingZeros(rowsOfValue[value])]) {
+                        if (units.boxOf[cell] != box) eliminated |= eliminate(cell, bit);
+                    }
+                }
+                if (Integer.bitCount(colsOfValue[value]) == 1) {
+                    for (int cell : units.units[size + Integer.numberOfTrailingZeros(colsOfValue[value])]) {
+                        if (units.boxOf[cell] != box) eliminated |= eliminate(cell, bit);
+                    }
+                }
+                if (eliminated) {
+                    count(Technique.POINTING);
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * A value whose candidates within a row or column all lie in one box can be removed from the rest of that box.
+     */
+    boolean claiming() {
+        boolean changed = false;
+        for (int line = 0; line < 2 * size; line++) {
+            Arrays.fill(boxesOfValue, 0);
+            for (int cell : units.units[line]) {
+                for (int mask = candidates[cell]; mask != 0; mask &= mask - 1) {
+                    boxesOfValue[Integer.numberOfTrailingZeros(mask)] |= 1 << units.boxOf[cell];
+                }
+            }
+            boolean isRow = line < size;
+            for (int value = 0; value < size; value++) {
+                if (Integer.bitCount(boxesOfValue[value]) == 1) {
+                    int bit = 1 << value;
+                    boolean eliminated = false;
+                    for (int cell : units.units[2 * size + Integer.numberOfTrailingZeros(boxesOfValue[value])]) {
+                        int cellLine = isRow ? units.rowOf[cell] : size + units.colOf[cell];
+                        if (cellLine != line) eliminated |= eliminate(cell, bit);
+                    }
+                    if (eliminated) {
+                        count(Technique.CLAIMING);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,139 @@
+package sudoku.game.solver;
+
+import sudoku.game.PackedBoard;
+import sudoku.game.symmetry.CanonicalForm;
+import sudoku.game.symmetry.Transform;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of solutions in front of the solvers. Solutions are stored for the {@link CanonicalForm} of the
+ * board, so a board that is a relabeled, permuted or transposed version of one solved before is answered by
+ * transforming the stored solution back, without solving.
+ * <p>
+ * A board is looked up by its cheap relabeled form first, which catches the same board solved again, and by its
+ * full canonical form after that. Only solutions are cached: when the solver fails, the board keeps whatever
+ * the solver left in it, and the next call tries again. Instances are thread-safe.
+ */
+public class SolveCache {
+    public interface Solver {
+        /**
+         * Solve board in place.
+         *
+         * @return true if board was solved
+         */
+        boolean solve(PackedBoard board);
+    }
+
+    private final int capacity;
+    private final Map<PackedBoard, PackedBoard> solutions;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SolveCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity " + capacity);
+        }
+        this.capacity = capacity;
+        this.solutions = new LinkedHashMap<PackedBoard, PackedBoard>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PackedBoard, PackedBoard> eldest) {
+                if (size() > SolveCache.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Fill in board with a cached solution, or with the one of solver, which is cached then.
+     *
+     * @return true if board was solved
+     */
+    public boolean solve(PackedBoard board, Solver solver) {
+        CanonicalForm relabeled = CanonicalForm.relabeled(board);
+        if (lookup(relabeled, board)) {
+            hits.increment();
+            return true;
+        }
+        CanonicalForm canonical = CanonicalForm.of(board);
+        if (lookup(canonical, board)) {
+            hits.increment();
+            store(relabeled, board);
+            return true;
+        }
+        misses.increment();
+        if (!solver.solve(board)) {
+            return false;
+        }
+        store(canonical, board);
+        store(relabeled, board);
+        return true;
+    }
+
+    private boolean lookup(CanonicalForm form, PackedBoard board) {
+        PackedBoard solution;
+        synchronized (solutions) {
+            solution = solutions.get(form.getBoard());
+        }
+        if (solution == null) {
+            return false;
+        }
+        Transform back = form.getTransform().inverse();
+        for (int cell = 0; cell < board.getSize() * board.getSize(); cell++) {
+            board.set(cell, back.map(solution.get(back.sourceCell(cell))));
+        }
+        return true;
+    }
+
+    private void store(CanonicalForm form, PackedBoard solved) {
+        PackedBoard solution = new PackedBoard(solved.getSize());
+        form.getTransform().apply(solved, solution);
+        synchronized (solutions) {
+            solutions.put(form.getBoard(), solution);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of cached boards; a solved board takes up to two entries, for its two forms
+     */
+    public int size() {
+        synchronized (solutions) {
+            return solutions.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public void clear() {
+        synchronized (solutions) {
+            solutions.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + getHits() + " misses=" + getMisses() + " evictions=" + getEvictions() + " size=" + size()
+                + "/" + capacity;
+    }
+}
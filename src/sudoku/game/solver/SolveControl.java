@@ -0,0 +1,68 @@
+package sudoku.game.solver;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets other threads stop a running solve and watch its progress. The search polls it every few thousand nodes,
+ * reporting the nodes explored since the last poll, and returns without a solution once it is stopped or past
+ * its deadline. Instances are thread-safe and meant for one solve.
+ */
+public class SolveControl {
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private final AtomicLong nodes = new AtomicLong();
+    // nanoTime values may be negative and wrap around, so only their differences are compared
+    private final boolean hasDeadline;
+    private final long deadline;
+    private volatile boolean timedOut;
+
+    /**
+     * Control without a time limit.
+     */
+    public SolveControl() {
+        this.hasDeadline = false;
+        this.deadline = 0;
+    }
+
+    public SolveControl(long timeout, TimeUnit unit) {
+        this.hasDeadline = true;
+        this.deadline = System.nanoTime() + unit.toNanos(timeout);
+    }
+
+    public void stop() {
+        stopped.set(true);
+    }
+
+    /**
+     * @return true if the solve was stopped or timed out
+     */
+    public boolean isStopped() {
+        return stopped.get();
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * @return search nodes explored so far, updated every few thousand nodes
+     */
+    public long getNodes() {
+        return nodes.get();
+    }
+
+    /**
+     * Add the nodes explored since the last poll.
+     *
+     * @return true if the search has to stop
+     */
+    boolean poll(long newNodes) {
+        nodes.addAndGet(newNodes);
+        if (hasDeadline && System.nanoTime() - deadline > 0 && !stopped.get()) {
+            timedOut = true;
+            stopped.set(true);
+        }
+        return stopped.get();
+    }
+}
@@ -0,0 +1,156 @@
+package sudoku.game.solver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe totals over many solves, fed with one {@link SolverStats} per solve.
+ * Besides plain counters there are histograms of search nodes and solve time with power-of-two buckets, so the
+ * expensive tail of a puzzle collection shows up. {@link #export()} writes everything in the Prometheus text format.
+ */
+public class SolverMetrics {
+    /**
+     * Histogram with bucket i counting the values below 2^i, the last bucket takes everything larger.
+     */
+    public static final class Histogram {
+        private static final int BUCKETS = 48;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder sum = new LongAdder();
+
+        public void record(long value) {
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, value)));
+            counts.incrementAndGet(bucket);
+            sum.add(value);
+        }
+
+        public long getCount() {
+            long count = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                count += counts.get(bucket);
+            }
+            return count;
+        }
+
+        public long getSum() {
+            return sum.sum();
+        }
+
+        /**
+         * @return upper bound of the bucket holding the given quantile, e.g. 0.99
+         */
+        public long quantileBound(double quantile) {
+            long rank = (long) Math.ceil(quantile * getCount());
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += counts.get(bucket);
+                if (seen >= rank && seen > 0) {
+                    return 1L << bucket;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        private void export(StringBuilder out, String name) {
+            long cumulative = 0;
+            for (int bucket = 0; bucket < BUCKETS - 1; bucket++) {
+                cumulative += counts.get(bucket);
+                out.append(name).append("_bucket{le=\"").append((1L << bucket) - 1).append("\"} ")
+                        .append(cumulative).append('\n');
+            }
+            cumulative += counts.get(BUCKETS - 1);
+            out.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+            out.append(name).append("_sum ").append(getSum()).append('\n');
+            out.append(name).append("_count ").append(cumulative).append('\n');
+        }
+    }
+
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder backtracks = new LongAdder();
+    private final LongAdder[] techniques = new LongAdder[Technique.values().length];
+    private final Histogram nodeHistogram = new Histogram();
+    private final Histogram nanosHistogram = new Histogram();
+    private final Histogram depthHistogram = new Histogram();
+
+    public SolverMetrics() {
+        for (int index = 0; index < techniques.length; index++) {
+            techniques[index] = new LongAdder();
+        }
+    }
+
+    public void record(SolverStats stats) {
+        solves.increment();
+        nodes.add(stats.getNodes());
+        backtracks.add(stats.getBacktracks());
+        for (Technique technique : Technique.values()) {
+            long count = stats.getCount(technique);
+            if (count > 0) {
+                techniques[technique.ordinal()].add(count);
+            }
+        }
+        nodeHistogram.record(stats.getNodes());
+        nanosHistogram.record(stats.getNanos());
+        depthHistogram.record(stats.getMaxDepth());
+    }
+
+    public long getSolves() {
+        return solves.sum();
+    }
+
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    public long getBacktracks() {
+        return backtracks.sum();
+    }
+
+    public long getCount(Technique technique) {
+        return techniques[technique.ordinal()].sum();
+    }
+
+    public Histogram getNodeHistogram() {
+        return nodeHistogram;
+    }
+
+    public Histogram getNanosHistogram() {
+        return nanosHistogram;
+    }
+
+    public Histogram getDepthHistogram() {
+        return depthHistogram;
+    }
+
+    /**
+     * @return all counters and histograms in the Prometheus text exposition format
+     */
+    public String export() {
+        StringBuilder out = new StringBuilder();
+        out.append("# TYPE sudoku_solves_total counter\n");
+        out.append("sudoku_solves_total ").append(getSolves()).append('\n');
+        out.append("# TYPE sudoku_search_nodes_total counter\n");
+        out.append("sudoku_search_nodes_total ").append(getNodes()).append('\n');
+        out.append("# TYPE sudoku_backtracks_total counter\n");
+        out.append("sudoku_backtracks_total ").append(getBacktracks()).append('\n');
+        out.append("# TYPE sudoku_technique_total counter\n");
+        for (Technique technique : Technique.values()) {
+            out.append("sudoku_technique_total{technique=\"").append(technique.name().toLowerCase()).append("\"} ")
+                    .append(getCount(technique)).append('\n');
+        }
+        out.append("# TYPE sudoku_search_nodes histogram\n");
+        nodeHistogram.export(out, "sudoku_search_nodes");
+        out.append("# TYPE sudoku_search_depth histogram\n");
+        depthHistogram.export(out, "sudoku_search_depth");
+        out.append("# TYPE sudoku_solve_nanoseconds histogram\n");
+        nanosHistogram.export(out, "sudoku_solve_nanoseconds");
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d solves, %d nodes, %d backtracks, nodes p50 < %d p99 < %d, time p99 < %.3f ms",
+                getSolves(), getNodes(), getBacktracks(), nodeHistogram.quantileBound(0.5),
+                nodeHistogram.quantileBound(0.99), nanosHistogram.quantileBound(0.99) / 1e6);
+    }
+}
@@ -0,0 +1,86 @@
+package sudoku.game.solver;
+
+import java.util.Arrays;
+
+/**
+ * Work done by one solve: search nodes, backtracks, maximum search depth, how often every logical technique made
+ * progress, and the wall-clock time. The solvers count in local variables and add them here once per search, so
+ * collecting stats costs next to nothing. An instance is meant for one thread, use {@link SolverMetrics} to
+ * aggregate many solves.
+ */
+public class SolverStats {
+    private long nodes;
+    private long backtracks;
+    private int maxDepth;
+    private long nanos;
+    private final long[] techniques = new long[Technique.values().length];
+
+    void addSearch(long nodes, long backtracks, int maxDepth) {
+        this.nodes += nodes;
+        this.backtracks += backtracks;
+        this.maxDepth = Math.max(this.maxDepth, maxDepth);
+    }
+
+    void found(Technique technique) {
+        techniques[technique.ordinal()]++;
+    }
+
+    void addNanos(long nanos) {
+        this.nanos += nanos;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public long getCount(Technique technique) {
+        return techniques[technique.ordinal()];
+    }
+
+    /**
+     * @return the hardest technique that made progress, null if none did
+     */
+    public Technique getHardestTechnique() {
+        Technique[] all = Technique.values();
+        for (int index = all.length - 1; index >= 0; index--) {
+            if (techniques[index] > 0) {
+                return all[index];
+            }
+        }
+        return null;
+    }
+
+    public void reset() {
+        nodes = 0;
+        backtracks = 0;
+        maxDepth = 0;
+        nanos = 0;
+        Arrays.fill(techniques, 0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append(String.format("%d nodes, %d backtracks, depth %d, %.3f ms",
+                nodes, backtracks, maxDepth, nanos / 1e6));
+        for (Technique technique : Technique.values()) {
+            if (techniques[technique.ordinal()] > 0) {
+                stringBuilder.append(", ").append(technique.name().toLowerCase())
+                        .append(' ').append(techniques[technique.ordinal()]);
+            }
+        }
+        return stringBuilder.toString();
+    }
+}
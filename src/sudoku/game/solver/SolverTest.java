@@ -0,0 +1,251 @@
+package sudoku.game.solver;
+
+import sudoku.game.BoardState;
+import sudoku.game.PackedBoard;
+import sudoku.game.generator.InitialStateGenerator;
+import sudoku.game.symmetry.Transform;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+public class SolverTest {
+    private int[][] initialState;
+
+    @org.junit.Before
+    public void setUp() {
+        initialState = new int[][]{
+                {8, 0, 0, 0, 0, 0, 0, 0, 0},
+                {0, 0, 3, 6, 0, 0, 0, 0, 0},
+                {0, 7, 0, 0, 9, 0, 2, 0, 0},
+                {0, 5, 0, 0, 0, 7, 0, 0, 0},
+                {0, 0, 0, 0, 4, 5, 7, 0, 0},
+                {0, 0, 0, 1, 0, 0, 0, 3, 0},
+                {0, 0, 1, 0, 0, 0, 0, 6, 8},
+                {0, 0, 8, 5, 0, 0, 0, 1, 0},
+                {0, 9, 0, 0, 0, 0, 4, 0, 0},
+        };
+    }
+
+    private int[][] copy(int[][] board) {
+        int[][] copy = new int[board.length][];
+        for (int row = 0; row < board.length; row++) {
+            copy[row] = board[row].clone();
+        }
+        return copy;
+    }
+
+    private boolean solves(int[][] solution) {
+        for (int row = 0; row < solution.length; row++) {
+            for (int col = 0; col < solution.length; col++) {
+                if (initialState[row][col] != 0 && initialState[row][col] != solution[row][col])
+                    return false;
+            }
+        }
+        return new BoardState(solution).isSolved();
+    }
+
+    @org.junit.Test
+    public void backtrack() {
+        int[][] board = new int[9][9];
+        assert BacktrackSolver.solveMostConstrained(board, initialState, 9);
+        assert solves(board);
+    }
+
+    @org.junit.Test
+    public void dancingLinks() {
+        int[][] board = copy(initialState);
+        assert DancingLinksSolver.solve(board, 9);
+        assert solves(board);
+        assert DancingLinksSolver.solve(new int[16][16], 16);
+    }
+
+    @org.junit.Test
+    public void logic() {
+        int[][] board = copy(initialState);
+        assert LogicSolver.solve(board, 9);
+        assert solves(board);
+    }
+
+    @org.junit.Test
+    public void parallel() {
+        ForkJoinPool pool = new ForkJoinPool(4); // splits the tree into 32 leaves, also on a single core
+        try {
+            int[][] board = copy(initialState);
+            assert ParallelSolver.solve(board, 9, pool);
+            assert solves(board);
+            PackedBoard packed = PackedBoard.of(initialState);
+            assert ParallelSolver.solve(packed, pool);
+            assert solves(packed.toArray());
+            assert ParallelSolver.solve(new int[16][16], 16, pool);
+
+            assert ParallelSolver.countSolutions(initialState, 2, pool) == 1;
+            // billions of solutions: only the stop flag ends the search
+            assert ParallelSolver.countSolutions(new int[9][9], 50, pool) == 50;
+            assert ParallelSolver.countSolutions(new int[16][16], 3, pool) == 3;
+
+            initialState[0][1] = 8; // conflicting givens
+            assert !ParallelSolver.solve(copy(initialState), 9, pool);
+            assert !ParallelSolver.solve(PackedBoard.of(initialState), pool);
+            assert ParallelSolver.countSolutions(initialState, 2, pool) == 0;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @org.junit.Test
+    public void conflictingEntries() {
+        initialState[0][1] = 8;
+        assert !DancingLinksSolver.solve(copy(initialState), 9);
+        assert !BacktrackSolver.solveMostConstrained(new int[9][9], initialState, 9);
+        assert BacktrackSolver.countSolutions(initialState, 2) == 0;
+    }
+
+    @org.junit.Test
+    public void countSolutions() {
+        assert BacktrackSolver.countSolutions(initialState, 2) == 1;
+        assert BacktrackSolver.countSolutions(new int[9][9], 5) == 5;
+        assert BacktrackSolver.hasUniqueSolution(InitialStateGenerator.generateInitialState(0.35, 9));
+    }
+
+    /**
+     * @return a propagator with the entries of board placed, but nothing propagated yet
+     */
+    private Propagator placed(int[][] board) {
+        Propagator propagator = new Propagator(board.length);
+        assert propagator.load(board);
+        return propagator;
+    }
+
+    @org.junit.Test
+    public void nakedPair() {
+        // 3 and 4 in box 0 leave (0, 0) and (0, 1) with 1 and 2
+        Propagator propagator = placed(new int[][]{{0, 0, 0, 0}, {3, 4, 0, 0}, {0, 0, 0, 0}, {0, 0, 0, 0}});
+        assert propagator.getCandidates(0, 2) == 0b1111;
+        assert propagator.nakedPairs();
+        assert propagator.getCandidates(0, 2) == 0b1100 && propagator.getCandidates(0, 3) == 0b1100;
+    }
+
+    @org.junit.Test
+    public void hiddenPair() {
+        // 1 and 2 in box 1 leave them to (0, 0) and (0, 1) in row 0
+        Propagator propagator = placed(new int[][]{{0, 0, 0, 0}, {0, 0, 1, 2}, {0, 0, 0, 0}, {0, 0, 0, 0}});
+        assert propagator.getCandidates(0, 0) == 0b1111;
+        assert propagator.hiddenPairs();
+        assert propagator.getCandidates(0, 0) == 0b0011 && propagator.getCandidates(0, 1) == 0b0011;
+    }
+
+    @org.junit.Test
+    public void pointing() {
+        // rows 1 and 2 of box 0 are filled, so 1 goes into row 0 of box 0
+        int[][] board = new int[9][9];
+        board[1] = new int[]{2, 3, 4, 0, 0, 0, 0, 0, 0};
+        board[2] = new int[]{5, 6, 7, 0, 0, 0, 0, 0, 0};
+        Propagator propagator = placed(board);
+        assert (propagator.getCandidates(0, 4) & 1) != 0;
+        assert propagator.pointing();
+        for (int col = 3; col < 9; col++) {
+            assert (propagator.getCandidates(0, col) & 1) == 0;
+        }
+        assert (propagator.getCandidates(0, 0) & 1) != 0;
+    }
+
+    @org.junit.Test
+    public void claiming() {
+        // row 0 is filled outside box 0, so 1 goes into row 0 of box 0
+        int[][] board = new int[9][9];
+        board[0] = new int[]{0, 0, 0, 2, 3, 4, 5, 6, 7};
+        Propagator propagator = placed(board);
+        assert (propagator.getCandidates(1, 0) & 1) != 0;
+        assert propagator.claiming();
+        for (int cell = 9; cell < 27; cell++) {
+            assert cell % 9 >= 3 || (propagator.getCandidates(cell / 9, cell % 9) & 1) == 0;
+        }
+        assert (propagator.getCandidates(0, 0) & 1) != 0 && (propagator.getCandidates(1, 3) & 1) != 0;
+    }
+
+    @org.junit.Test
+    public void solveControl() {
+        SolveControl expired = new SolveControl(-1, TimeUnit.NANOSECONDS); // past its deadline right away
+        assert expired.poll(10) && expired.isTimedOut() && expired.isStopped() && expired.getNodes() == 10;
+        SolveControl distant = new SolveControl(Long.MAX_VALUE, TimeUnit.DAYS); // deadline wraps around
+        assert !distant.poll(1) && !distant.isTimedOut();
+        SolveControl unlimited = new SolveControl();
+        assert !unlimited.poll(1);
+        unlimited.stop();
+        assert unlimited.poll(1) && !unlimited.isTimedOut();
+    }
+
+    @org.junit.Test
+    public void packedBoard() {
+        PackedBoard packed = PackedBoard.of(initialState);
+        assert packed.isFixed(0, 0) && !packed.isFixed(0, 1);
+        assert packed.equals(PackedBoard.of(packed.toArray()));
+
+        PackedBoard board = packed.copy();
+        assert DancingLinksSolver.solve(board);
+        assert solves(board.toArray());
+        board.reset();
+        assert board.equals(packed);
+        assert LogicSolver.solve(board);
+        assert solves(board.toArray());
+        assert BacktrackSolver.countSolutions(packed, 2) == 1;
+    }
+
+    @org.junit.Test
+    public void stats() {
+        SolverStats stats = new SolverStats();
+        assert LogicSolver.solve(copy(initialState), 9, stats);
+        assert stats.getNodes() > 0 && stats.getNanos() > 0; // propagation alone gets nowhere on this one
+        stats.reset();
+        assert LogicSolver.solve(InitialStateGenerator.generateInitialState(0.5, 9), 9, stats);
+        assert stats.getCount(Technique.NAKED_SINGLE) + stats.getCount(Technique.HIDDEN_SINGLE) > 0;
+
+        int empty = 0;
+        for (int[] row : initialState) {
+            for (int value : row) {
+                empty += value == 0 ? 1 : 0;
+            }
+        }
+        stats.reset();
+        assert DancingLinksSolver.solve(copy(initialState), 9, stats);
+        assert stats.getNodes() >= empty && stats.getMaxDepth() == empty;
+
+        SolverMetrics metrics = new SolverMetrics();
+        metrics.record(stats);
+        assert metrics.getSolves() == 1 && metrics.getNodes() == stats.getNodes();
+        assert metrics.export().contains("sudoku_search_nodes_count 1");
+    }
+
+    @org.junit.Test
+    public void grades() {
+        assert DifficultyRater.grade(initialState) == Grade.EXPERT;
+        assert DifficultyRater.grade(new int[9][9]) == null; // not unique
+        for (Grade grade : Grade.values()) {
+            int[][] puzzle = InitialStateGenerator.generateInitialState(grade, 9);
+            assert DifficultyRater.grade(puzzle).compareTo(grade) <= 0;
+            assert BacktrackSolver.hasUniqueSolution(puzzle);
+        }
+    }
+
+    @org.junit.Test
+    public void solveCache() {
+        SolveCache cache = new SolveCache(4);
+        PackedBoard board = PackedBoard.of(initialState);
+        assert cache.solve(board, DancingLinksSolver::solve) && cache.getMisses() == 1;
+
+        PackedBoard transformed = new PackedBoard(9);
+        Transform.random(9, new SplittableRandom(7)).apply(PackedBoard.of(initialState), transformed);
+        PackedBoard puzzle = transformed.copy();
+        assert cache.solve(transformed, unused -> false) && cache.getHits() == 1;
+        assert new BoardState(transformed.toArray()).isSolved();
+        for (int cell = 0; cell < 81; cell++) {
+            assert !puzzle.isFixed(cell) || transformed.get(cell) == puzzle.get(cell);
+        }
+
+        for (int count = 0; count < 3; count++) {
+            assert cache.solve(PackedBoard.of(InitialStateGenerator.generateInitialState(0.4, 9)), LogicSolver::solve);
+        }
+        assert cache.size() <= 4 && cache.getEvictions() > 0;
+    }
+}
@@ -0,0 +1,13 @@
+package sudoku.game.solver;
+
+/**
+ * Logical solving techniques of the {@link Propagator}, from the easiest to the hardest.
+ */
+public enum Technique {
+    NAKED_SINGLE,
+    HIDDEN_SINGLE,
+    NAKED_PAIR,
+    HIDDEN_PAIR,
+    POINTING,
+    CLAIMING
+}
@@ -0,0 +1,62 @@
+package sudoku.game.solver;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cell geometry of a board size: the cells of every row, column and box, and the peers of every cell.
+ * Cells are row-major indices, row * size + col. Units 0..size-1 are the rows, size..2*size-1 the columns
+ * and 2*size..3*size-1 the boxes. Instances are immutable and shared per size.
+ */
+final class Units {
+    private static final ConcurrentMap<Integer, Units> cache = new ConcurrentHashMap<>();
+
+    final int size;
+    final int blockSize;
+    final int[][] units;
+    final int[][] peers;
+    final int[] rowOf;
+    final int[] colOf;
+    final int[] boxOf;
+
+    private Units(int size) {
+        this.size = size;
+        this.blockSize = (int) Math.sqrt(size);
+        int cells = size * size;
+        rowOf = new int[cells];
+        colOf = new int[cells];
+        boxOf = new int[cells];
+        units = new int[3 * size][size];
+        int[] filledPerUnit = new int[3 * size];
+        for (int cell = 0; cell < cells; cell++) {
+            int row = cell / size;
+            int col = cell % size;
+            int box = (row / blockSize) * blockSize + col / blockSize;
+            rowOf[cell] = row;
+            colOf[cell] = col;
+            boxOf[cell] = box;
+            units[row][filledPerUnit[row]++] = cell;
+            units[size + col][filledPerUnit[size + col]++] = cell;
+            units[2 * size + box][filledPerUnit[2 * size + box]++] = cell;
+        }
+        // row and column peers, plus the box peers outside of both
+        int peerCount = 2 * (size - 1) + (blockSize - 1) * (blockSize - 1);
+        peers = new int[cells][peerCount];
+        for (int cell = 0; cell < cells; cell++) {
+            int index = 0;
+            for (int other : units[rowOf[cell]]) {
+                if (other != cell) peers[cell][index++] = other;
+            }
+            for (int other : units[size + colOf[cell]]) {
+                if (other != cell) peers[cell][index++] = other;
+            }
+            for (int other : units[2 * size + boxOf[cell]]) {
+                if (rowOf[other] != rowOf[cell] && colOf[other] != colOf[cell]) peers[cell][index++] = other;
+            }
+        }
+    }
+
+    static Units of(int size) {
+        return cache.computeIfAbsent(size, Units::new);
+    }
+}
@@ -0,0 +1,343 @@
+package sudoku.game.symmetry;
+
+import sudoku.game.PackedBoard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Representative of the class of boards that are equal up to a {@link Transform}: two boards have equal canonical
+ * boards if and only if one is a transform of the other, so the canonical board can key results that all
+ * equivalent boards share, like their solution.
+ * <p>
+ * The canonical board of a 4x4 or 9x9 board is the smallest transform in row-major order, with the values relabeled
+ * in the order they first appear. It is found row by row, keeping only the partial transforms whose rows so far
+ * are the smallest, so a typical puzzle takes a few thousand row comparisons instead of the 3.4 million transforms
+ * of the group. On larger boards the group is too large for that, and only the values are relabeled.
+ * For highly symmetric boards (nearly empty ones) the number of partial transforms is capped; the result is then a
+ * transform of the board that may differ between equivalent boards, which costs cache hits but never correctness.
+ */
+public final class CanonicalForm {
+    private static final int MAX_SEARCH_SIZE = 9;
+    private static final int MAX_CANDIDATES = 1 << 12;
+
+    private static final ConcurrentMap<Integer, int[][]> linePermutations = new ConcurrentHashMap<>();
+
+    private final PackedBoard board;
+    private final Transform transform;
+
+    private CanonicalForm(int[] cells, Transform transform) {
+        this.transform = transform;
+        this.board = new PackedBoard(transform.getSize());
+        for (int cell = 0; cell < cells.length; cell++) {
+            board.set(cell, transform.map(cells[transform.sourceCell(cell)]));
+        }
+    }
+
+    public static CanonicalForm of(PackedBoard board) {
+        int size = board.getSize();
+        int[] cells = cells(board);
+        return new CanonicalForm(cells, size <= MAX_SEARCH_SIZE ? search(cells, size) : relabel(cells, size));
+    }
+
+    /**
+     * @return the board with its values relabeled in the order they first appear, a form that is much cheaper
+     * than {@link #of(PackedBoard)} and equal for boards that only differ in their values
+     */
+    public static CanonicalForm relabeled(PackedBoard board) {
+        int[] cells = cells(board);
+        return new CanonicalForm(cells, relabel(cells, board.getSize()));
+    }
+
+    private static int[] cells(PackedBoard board) {
+        int[] cells = new int[board.getSize() * board.getSize()];
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = board.get(cell);
+        }
+        return cells;
+    }
+
+    /**
+     * @return the canonical board, without fixed cells
+     */
+    public PackedBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * @return a transform from the board this form was made of to the canonical board
+     */
+    public Transform getTransform() {
+        return transform;
+    }
+
+    private static Transform relabel(int[] cells, int size) {
+        Candidate identity = new Candidate(size, false, identity(size));
+        for (int row = 0; row < size; row++) {
+            identity = identity.extend(cells, row);
+        }
+        return identity.toTransform();
+    }
+
+    private static Transform search(int[] cells, int size) {
+        int blockSize = (int) Math.sqrt(size);
+        int[][] grids = {cells, new int[cells.length]};
+        for (int cell = 0; cell < cells.length; cell++) {
+            grids[1][cell] = cells[(cell % size) * size + cell / size];
+        }
+        int[][] allCols = linePermutations(size);
+
+        // first row: only the rows whose smallest line is the smallest of all are tried with every column order
+        int[][] smallest = new int[2 * size][];
+        int[] best = null;
+        for (int index = 0; index < smallest.length; index++) {
+            smallest[index] = smallestLine(grids[index / size], index % size, blockSize, allCols);
+            if (best == null || compare(smallest[index], best) < 0) {
+                best = smallest[index];
+            }
+        }
+        List<Candidate> candidates = new ArrayList<>();
+        int[] labels = new int[size + 1];
+        int[] line = new int[size];
+        for (int index = 0; index < smallest.length; index++) {
+            if (compare(smallest[index], best) != 0) {
+                continue;
+            }
+            int[] grid = grids[index / size];
+            for (int[] cols : allCols) {
+                label(grid, index % size, cols, labels, 1, line);
+                if (compare(line, best) == 0 && candidates.size() < MAX_CANDIDATES) {
+                    candidates.add(new Candidate(size, index >= size, cols).extend(grid, index % size));
+                }
+            }
+        }
+
+        best = new int[size];
+        for (int level = 1; level < size; level++) {
+            List<Candidate> next = new ArrayList<>();
+            for (Candidate candidate : candidates) {
+                int[] grid = grids[candidate.transposed ? 1 : 0];
+                for (int row = 0; row < size; row++) {
+                    if (!candidate.allows(row, blockSize)) {
+                        continue;
+                    }
+                    label(grid, row, candidate.cols, candidate.labels, candidate.nextLabel, line);
+                    int order = next.isEmpty() ? -1 : compare(line, best);
+                    if (order > 0) {
+                        continue;
+                    } else if (order < 0) {
+                        next.clear();
+                        System.arraycopy(line, 0, best, 0, size);
+                    }
+                    if (next.size() < MAX_CANDIDATES) {
+                        next.add(candidate.extend(grid, row));
+                    }
+                }
+            }
+            candidates = next;
+        }
+        return candidates.get(0).toTransform();
+    }
+
+    /**
+     * @return the smallest line row can have as the first row of a transform
+     */
+    private static int[] smallestLine(int[] grid, int row, int blockSize, int[][] allCols) {
+        int size = blockSize * blockSize;
+        int[] line = new int[size];
+        int[] stackCounts = new int[blockSize];
+        int seen = 0;
+        boolean distinct = true;
+        for (int col = 0; col < size; col++) {
+            int value = grid[row * size + col];
+            if (value != 0) {
+                stackCounts[col / blockSize]++;
+                distinct &= (seen & 1 << value) == 0;
+                seen |= 1 << value;
+            }
+        }
+        if (distinct) {
+            // the labels count up, so the line is smallest with the emptiest stacks first and the entries last
+            Arrays.sort(stackCounts);
+            int label = 1;
+            for (int stack = 0; stack < blockSize; stack++) {
+                for (int offset = 0; offset < blockSize; offset++) {
+                    line[stack * blockSize + offset] = offset < blockSize - stackCounts[stack] ? 0 : label++;
+                }
+            }
+            return line;
+        }
+        // a row with repeated values, as in a board with wrong entries: try every column order
+        int[] labels = new int[size + 1];
+        int[] other = new int[size];
+        for (int index = 0; index < allCols.length; index++) {
+            label(grid, row, allCols[index], labels, 1, other);
+            if (index == 0 || compare(other, line) < 0) {
+                System.arraycopy(other, 0, line, 0, size);
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Write the labels row would have as the next row of a transform with the column order cols into line, given
+     * the labels of the rows before. Labels is left unchanged.
+     */
+    private static void label(int[] grid, int row, int[] cols, int[] labels, int nextLabel, int[] line) {
+        int size = cols.length;
+        int next = nextLabel;
+        for (int col = 0; col < size; col++) {
+            int value = grid[row * size + cols[col]];
+            if (value != 0 && labels[value] == 0) {
+                labels[value] = next++;
+            }
+            line[col] = labels[value];
+        }
+        for (int col = 0; col < size; col++) { // take the new labels back
+            int value = grid[row * size + cols[col]];
+            if (labels[value] >= nextLabel) {
+                labels[value] = 0;
+            }
+        }
+    }
+
+    private static int compare(int[] line, int[] other) {
+        for (int index = 0; index < line.length; index++) {
+            if (line[index] != other[index]) {
+                return line[index] < other[index] ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    private static int[] identity(int size) {
+        int[] identity = new int[size];
+        for (int index = 0; index < size; index++) {
+            identity[index] = index;
+        }
+        return identity;
+    }
+
+    /**
+     * @return all orders of the lines of a board that keep the lines of every band together
+     */
+    private static int[][] linePermutations(int size) {
+        return linePermutations.computeIfAbsent(size, key -> {
+            int blockSize = (int) Math.sqrt(size);
+            List<int[]> blockOrders = new ArrayList<>();
+            permute(new int[blockSize], 0, 0, blockOrders);
+            List<int[]> lines = new ArrayList<>();
+            addLines(blockOrders, new int[size], blockSize, lines);
+            return lines.toArray(new int[0][]);
+        });
+    }
+
+    private static void permute(int[] order, int length, int used, List<int[]> orders) {
+        if (length == order.length) {
+            orders.add(order.clone());
+            return;
+        }
+        for (int index = 0; index < order.length; index++) {
+            if ((used & 1 << index) == 0) {
+                order[length] = index;
+                permute(order, length + 1, used | 1 << index, orders);
+            }
+        }
+    }
+
+    private static void addLines(List<int[]> blockOrders, int[] lines, int blockSize, List<int[]> all) {
+        for (int[] bands : blockOrders) {
+            addLines(blockOrders, bands, lines, 0, blockSize, all);
+        }
+    }
+
+    // the lines of the bands from band on, each band in every order
+    private static void addLines(List<int[]> blockOrders, int[] bands, int[] lines, int band, int blockSize,
+                                 List<int[]> all) {
+        if (band == blockSize) {
+            all.add(lines.clone());
+            return;
+        }
+        for (int[] offsets : blockOrders) {
+            for (int offset = 0; offset < blockSize; offset++) {
+                lines[band * blockSize + offset] = bands[band] * blockSize + offsets[offset];
+            }
+            addLines(blockOrders, bands, lines, band + 1, blockSize, all);
+        }
+    }
+
+    /**
+     * Partial transform: the column order and transposition are chosen, the rows up to level and the labels of the
+     * values in them.
+     */
+    private static final class Candidate {
+        final int size;
+        final boolean transposed;
+        final int[] cols;
+        final int[] rows;
+        final int[] labels;
+        final int level;
+        final int nextLabel;
+        final int usedRows;
+
+        Candidate(int size, boolean transposed, int[] cols) {
+            this(size, transposed, cols, new int[size], new int[size + 1], 0, 1, 0);
+        }
+
+        private Candidate(int size, boolean transposed, int[] cols, int[] rows, int[] labels, int level,
+                          int nextLabel, int usedRows) {
+            this.size = size;
+            this.transposed = transposed;
+            this.cols = cols;
+            this.rows = rows;
+            this.labels = labels;
+            this.level = level;
+            this.nextLabel = nextLabel;
+            this.usedRows = usedRows;
+        }
+
+        /**
+         * @return true if row can be the next row: a row of an unused band at the start of a band, a row of the
+         * current band otherwise
+         */
+        boolean allows(int row, int blockSize) {
+            if ((usedRows & 1 << row) != 0) {
+                return false;
+            }
+            if (level % blockSize == 0) {
+                int bandRows = ((1 << blockSize) - 1) << (row / blockSize * blockSize);
+                return (usedRows & bandRows) == 0;
+            }
+            return row / blockSize == rows[level - 1] / blockSize;
+        }
+
+        Candidate extend(int[] grid, int row) {
+            int[] extendedRows = rows.clone();
+            extendedRows[level] = row;
+            int[] extendedLabels = labels.clone();
+            int next = nextLabel;
+            for (int col = 0; col < size; col++) {
+                int value = grid[row * size + cols[col]];
+                if (value != 0 && extendedLabels[value] == 0) {
+                    extendedLabels[value] = next++;
+                }
+            }
+            return new Candidate(size, transposed, cols, extendedRows, extendedLabels, level + 1, next,
+                    usedRows | 1 << row);
+        }
+
+        Transform toTransform() {
+            int[] values = labels.clone();
+            int next = nextLabel;
+            for (int value = 1; value <= size; value++) { // values the board does not contain
+                if (values[value] == 0) {
+                    values[value] = next++;
+                }
+            }
+            return new Transform(size, transposed, rows, cols, values);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package sudoku.game.symmetry;
+
+import sudoku.game.BoardState;
+import sudoku.game.PackedBoard;
+import sudoku.game.solver.DancingLinksSolver;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class CanonicalFormTest {
+    private static final int[][] PUZZLE = {
+            {8, 0, 0, 0, 0, 0, 0, 0, 0},
+            {0, 0, 3, 6, 0, 0, 0, 0, 0},
+            {0, 7, 0, 0, 9, 0, 2, 0, 0},
+            {0, 5, 0, 0, 0, 7, 0, 0, 0},
+            {0, 0, 0, 0, 4, 5, 7, 0, 0},
+            {0, 0, 0, 1, 0, 0, 0, 3, 0},
+            {0, 0, 1, 0, 0, 0, 0, 6, 8},
+            {0, 0, 8, 5, 0, 0, 0, 1, 0},
+            {0, 9, 0, 0, 0, 0, 4, 0, 0},
+    };
+
+    @org.junit.Test
+    public void transform() {
+        SplittableRandom random = new SplittableRandom(5);
+        PackedBoard puzzle = PackedBoard.of(PUZZLE);
+        PackedBoard solution = puzzle.copy();
+        assert DancingLinksSolver.solve(solution);
+        for (int count = 0; count < 20; count++) {
+            Transform transform = Transform.random(9, random);
+            PackedBoard transformed = new PackedBoard(9);
+            transform.apply(puzzle, transformed);
+            assert Arrays.deepEquals(transformed.toArray(), transform.apply(PUZZLE));
+            for (int cell = 0; cell < 81; cell++) {
+                assert transformed.isFixed(cell) == puzzle.isFixed(transform.sourceCell(cell));
+            }
+
+            PackedBoard back = new PackedBoard(9);
+            transform.inverse().apply(transformed, back);
+            assert back.equals(puzzle);
+
+            PackedBoard solved = new PackedBoard(9);
+            transform.apply(solution, solved);
+            assert new BoardState(solved.toArray()).isSolved(); // a transform keeps a solution valid
+        }
+        assert Transform.identity(9).apply(PUZZLE)[0][0] == 8;
+    }
+
+    @org.junit.Test
+    public void canonicalForm() {
+        PackedBoard puzzle = PackedBoard.of(PUZZLE);
+        CanonicalForm form = CanonicalForm.of(puzzle);
+        PackedBoard mapped = new PackedBoard(9);
+        form.getTransform().apply(puzzle, mapped);
+        assert Arrays.deepEquals(mapped.toArray(), form.getBoard().toArray());
+
+        SplittableRandom random = new SplittableRandom(7);
+        for (int count = 0; count < 5; count++) {
+            PackedBoard transformed = new PackedBoard(9);
+            Transform.random(9, random).apply(puzzle, transformed);
+            assert CanonicalForm.of(transformed).getBoard().equals(form.getBoard());
+        }
+
+        PackedBoard other = puzzle.copy();
+        other.set(0, 0, 0); // one entry less is a different class
+        assert !CanonicalForm.of(other).getBoard().equals(form.getBoard());
+    }
+
+    @org.junit.Test
+    public void relabeled() {
+        int[][] swapped = new int[9][];
+        for (int row = 0; row < 9; row++) {
+            swapped[row] = PUZZLE[row].clone();
+            for (int col = 0; col < 9; col++) {
+                int value = swapped[row][col];
+                swapped[row][col] = value == 1 ? 2 : value == 2 ? 1 : value; // only the values differ
+            }
+        }
+        assert CanonicalForm.relabeled(PackedBoard.of(swapped)).getBoard()
+                .equals(CanonicalForm.relabeled(PackedBoard.of(PUZZLE)).getBoard());
+        assert CanonicalForm.relabeled(PackedBoard.of(PUZZLE)).getBoard().get(0) == 1; // first value seen
+    }
+}
@@ -0,0 +1,148 @@
+package sudoku.game.symmetry;
+
+import sudoku.game.PackedBoard;
+
+import java.util.SplittableRandom;
+
+/**
+ * An element of the symmetry group of Sudoku boards: an optional transposition, followed by a permutation of the
+ * rows that keeps every row in a band (band permutation and row swaps within the bands), the same for the columns
+ * and stacks, and a relabeling of the values. A transformed board has the same number of solutions as the original,
+ * and the transformed solutions.
+ * <p>
+ * Instances are immutable.
+ */
+public final class Transform {
+    private final int size;
+    private final boolean transposed;
+    private final int[] rows; // rows[row] is the row of the (transposed) source that row is taken from
+    private final int[] cols;
+    private final int[] values; // values[value] replaces value, values[0] == 0
+
+    Transform(int size, boolean transposed, int[] rows, int[] cols, int[] values) {
+        this.size = size;
+        this.transposed = transposed;
+        this.rows = rows;
+        this.cols = cols;
+        this.values = values;
+    }
+
+    public static Transform identity(int size) {
+        return new Transform(size, false, identityPermutation(size), identityPermutation(size),
+                identityPermutation(size + 1));
+    }
+
+    /**
+     * @return a transform drawn uniformly from the symmetry group of boards of size
+     */
+    public static Transform random(int size, SplittableRandom random) {
+        int[] values = new int[size + 1];
+        int[] labels = permutation(size, random);
+        for (int value = 1; value <= size; value++) {
+            values[value] = labels[value - 1] + 1;
+        }
+        return new Transform(size, random.nextBoolean(), linePermutation(size, random),
+                linePermutation(size, random), values);
+    }
+
+    private static int[] identityPermutation(int length) {
+        int[] permutation = new int[length];
+        for (int index = 0; index < length; index++) {
+            permutation[index] = index;
+        }
+        return permutation;
+    }
+
+    private static int[] permutation(int length, SplittableRandom random) {
+        int[] permutation = identityPermutation(length);
+        for (int index = length - 1; index > 0; index--) {
+            int other = random.nextInt(index + 1);
+            int swap = permutation[index];
+            permutation[index] = permutation[other];
+            permutation[other] = swap;
+        }
+        return permutation;
+    }
+
+    /**
+     * @return random order of the lines of a board that keeps the lines of every band together
+     */
+    private static int[] linePermutation(int size, SplittableRandom random) {
+        int blockSize = (int) Math.sqrt(size);
+        int[] bands = permutation(blockSize, random);
+        int[] lines = new int[size];
+        for (int band = 0; band < blockSize; band++) {
+            int[] offsets = permutation(blockSize, random);
+            for (int offset = 0; offset < blockSize; offset++) {
+                lines[band * blockSize + offset] = bands[band] * blockSize + offsets[offset];
+            }
+        }
+        return lines;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the value that value becomes
+     */
+    public int map(int value) {
+        return values[value];
+    }
+
+    /**
+     * @return the cell of the source board that cell of the transformed board is taken from
+     */
+    public int sourceCell(int cell) {
+        int row = rows[cell / size];
+        int col = cols[cell % size];
+        return transposed ? col * size + row : row * size + col;
+    }
+
+    /**
+     * Write the transformed source into target, fixed bits included. Both boards must have the size of this
+     * transform, and must not be the same board.
+     */
+    public void apply(PackedBoard source, PackedBoard target) {
+        if (source.getSize() != size || target.getSize() != size) {
+            throw new IllegalArgumentException("board size does not match transform size " + size);
+        }
+        for (int cell = 0; cell < size * size; cell++) {
+            int from = sourceCell(cell);
+            target.set(cell, values[source.get(from)]);
+            target.setFixed(cell, source.isFixed(from));
+        }
+    }
+
+    public int[][] apply(int[][] board) {
+        if (board.length != size) {
+            throw new IllegalArgumentException("board size does not match transform size " + size);
+        }
+        int[][] transformed = new int[size][size];
+        for (int cell = 0; cell < size * size; cell++) {
+            int from = sourceCell(cell);
+            transformed[cell / size][cell % size] = values[board[from / size][from % size]];
+        }
+        return transformed;
+    }
+
+    /**
+     * @return the transform that undoes this one
+     */
+    public Transform inverse() {
+        int[] rowsBack = invert(rows);
+        int[] colsBack = invert(cols);
+        // transposing first and permuting after turns around: the inverse permutes rows by the inverse col order
+        return new Transform(size, transposed, transposed ? colsBack : rowsBack, transposed ? rowsBack : colsBack,
+                invert(values));
+    }
+
+    private static int[] invert(int[] permutation) {
+        int[] inverse = new int[permutation.length];
+        for (int index = 0; index < permutation.length; index++) {
+            inverse[permutation[index]] = index;
+        }
+        return inverse;
+    }
+}
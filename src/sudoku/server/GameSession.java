@@ -0,0 +1,75 @@
+package sudoku.server;
+
+import sudoku.game.SudokuGame;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A game hosted by a {@link SessionManager}, with the time it was last used.
+ * The game itself is not thread-safe: requests change it while holding the lock of the session.
+ */
+public final class GameSession {
+    // rough heap footprint of a game, used for the memory budget of the manager
+    private static final long BASE_BYTES = 1024;
+    private static final long BYTES_PER_CELL = 12;
+    private static final long BYTES_PER_DELTA = 4;
+    // undo reaches back this many cell changes, so one busy session cannot take the memory of the others
+    static final int MAX_JOURNAL_DELTAS = 4096;
+
+    private final String id;
+    private final SudokuGame game;
+    // estimate as last counted in the total of the manager, 0 once the session is removed
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    private volatile long lastAccess;
+
+    GameSession(String id, SudokuGame game, long now) {
+        this.id = id;
+        this.game = game;
+        this.lastAccess = now;
+        game.setJournalLimit(MAX_JOURNAL_DELTAS);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public SudokuGame getGame() {
+        return game;
+    }
+
+    /**
+     * @return time of the last access in milliseconds of the clock of the manager
+     */
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    void touch(long now) {
+        lastAccess = now;
+    }
+
+    /**
+     * @return estimated heap bytes of the game as of the last count: its board state, packed initial board,
+     * conflict bits and move journal
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes.get();
+    }
+
+    /**
+     * Estimate the bytes of the game now. The caller holds the lock of the session.
+     */
+    long measure() {
+        return BASE_BYTES + BYTES_PER_CELL * game.getSize() * game.getSize()
+                + BYTES_PER_DELTA * game.getJournalSize();
+    }
+
+    /**
+     * Store a new estimate.
+     *
+     * @return the estimate it replaces
+     */
+    long account(long bytes) {
+        return estimatedBytes.getAndSet(bytes);
+    }
+}
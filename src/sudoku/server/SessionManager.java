@@ -0,0 +1,207 @@
+package sudoku.server;
+
+import sudoku.game.SudokuGame;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds many {@link SudokuGame}s at once, keyed by random session ids. Lookups go to a concurrent map and take no
+ * lock, so thousands of sessions can be played at the same time.
+ * <p>
+ * Sessions are evicted in two ways: a background sweep removes the ones that were not used for longer than the idle
+ * time, and when the estimated memory of all games exceeds the budget, the least recently used ones are removed
+ * until 90% of the budget is left. The estimate of a game grows with its move journal, so it is counted again
+ * after every request that changes the game; the journal is capped per game, so one session that keeps moving
+ * cannot push the others out. An evicted session is gone like a removed one; games are never written to disk.
+ * Instances are thread-safe.
+ */
+public class SessionManager {
+    private static final double BUDGET_AFTER_EVICTION = 0.9;
+
+    private final long idleMillis;
+    private final long memoryBudget;
+    private final LongSupplier clock;
+    private final ConcurrentMap<String, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    private final Object evictionLock = new Object();
+    private ScheduledExecutorService sweeper;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evictedIdle = new LongAdder();
+    private final LongAdder evictedMemory = new LongAdder();
+
+    /**
+     * @param idleMillis   time after the last access after which a session is evicted
+     * @param memoryBudget estimated bytes all games may take together
+     */
+    public SessionManager(long idleMillis, long memoryBudget) {
+        this(idleMillis, memoryBudget, System::currentTimeMillis);
+    }
+
+    SessionManager(long idleMillis, long memoryBudget, LongSupplier clock) {
+        if (idleMillis <= 0 || memoryBudget <= 0) {
+            throw new IllegalArgumentException("idle time " + idleMillis + ", memory budget " + memoryBudget);
+        }
+        this.idleMillis = idleMillis;
+        this.memoryBudget = memoryBudget;
+        this.clock = clock;
+    }
+
+    /**
+     * Start a daemon thread that evicts idle sessions every quarter of the idle time.
+     */
+    public synchronized void startSweeper() {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(idleMillis / 4, 1);
+        sweeper.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    /**
+     * Start a new session on the given puzzle, evicting the least recently used sessions if the memory budget
+     * is exceeded.
+     */
+    public GameSession create(int[][] puzzle) {
+        GameSession session = new GameSession(UUID.randomUUID().toString(), new SudokuGame(puzzle), clock.getAsLong());
+        sessions.put(session.getId(), session);
+        created.increment();
+        recount(session);
+        return session;
+    }
+
+    /**
+     * Count the estimated bytes of the game of session again after it changed, evicting the least recently used
+     * sessions if the memory budget is exceeded.
+     */
+    public void recount(GameSession session) {
+        long bytes;
+        synchronized (session) {
+            bytes = session.measure();
+        }
+        long total = estimatedBytes.addAndGet(bytes - session.account(bytes));
+        if (sessions.get(session.getId()) != session) {
+            // removed meanwhile: take back what was just counted, removal may have missed it
+            estimatedBytes.addAndGet(-session.account(0));
+        } else if (total > memoryBudget) {
+            evictForMemory();
+        }
+    }
+
+    /**
+     * @return the session with the given id, marked as used now, or null if there is none or it was evicted
+     */
+    public GameSession get(String id) {
+        GameSession session = sessions.get(id);
+        if (session != null) {
+            session.touch(clock.getAsLong());
+        }
+        return session;
+    }
+
+    /**
+     * @return true if the session existed
+     */
+    public boolean remove(String id) {
+        GameSession session = sessions.get(id);
+        return session != null && remove(session);
+    }
+
+    private boolean remove(GameSession session) {
+        if (sessions.remove(session.getId(), session)) {
+            estimatedBytes.addAndGet(-session.account(0));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remove the sessions that were not used for longer than the idle time.
+     *
+     * @return number of sessions removed
+     */
+    public int evictIdle() {
+        long oldest = clock.getAsLong() - idleMillis;
+        int evicted = 0;
+        for (GameSession session : sessions.values()) {
+            if (session.getLastAccess() < oldest && remove(session)) {
+                evicted++;
+            }
+        }
+        evictedIdle.add(evicted);
+        return evicted;
+    }
+
+    private void evictForMemory() {
+        synchronized (evictionLock) { // one thread evicts, the others find the budget kept afterwards
+            if (estimatedBytes.get() <= memoryBudget) {
+                return;
+            }
+            List<GameSession> byAge = new ArrayList<>(sessions.values());
+            byAge.sort(Comparator.comparingLong(GameSession::getLastAccess));
+            long target = (long) (memoryBudget * BUDGET_AFTER_EVICTION);
+            for (int index = 0; index < byAge.size() && estimatedBytes.get() > target; index++) {
+                if (remove(byAge.get(index))) {
+                    evictedMemory.increment();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public long getEstimatedBytes() {
+        return estimatedBytes.get();
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public long getIdleMillis() {
+        return idleMillis;
+    }
+
+    public long getCreated() {
+        return created.sum();
+    }
+
+    public long getEvictedIdle() {
+        return evictedIdle.sum();
+    }
+
+    public long getEvictedMemory() {
+        return evictedMemory.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "sessions=" + size() + " bytes=" + getEstimatedBytes() + "/" + memoryBudget + " created="
+                + getCreated() + " evictedIdle=" + getEvictedIdle() + " evictedMemory=" + getEvictedMemory();
+    }
+}
@@ -0,0 +1,159 @@
+package sudoku.server;
+
+import sudoku.game.generator.PuzzlePool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SessionManagerTest {
+    private static final int[][] PUZZLE = {
+            {0, 2, 0, 4, 0, 0, 7, 0, 0},
+            {7, 0, 0, 0, 0, 6, 0, 0, 8},
+            {0, 8, 3, 0, 0, 0, 0, 0, 1},
+            {0, 0, 2, 6, 0, 0, 0, 0, 0},
+            {0, 5, 0, 0, 0, 0, 0, 7, 0},
+            {0, 0, 0, 0, 0, 3, 9, 0, 0},
+            {9, 0, 0, 0, 0, 0, 8, 3, 0},
+            {3, 0, 0, 5, 0, 0, 0, 0, 7},
+            {0, 0, 1, 0, 0, 4, 0, 6, 0},
+    };
+
+    @org.junit.Test
+    public void eviction() {
+        AtomicLong now = new AtomicLong();
+        SessionManager idle = new SessionManager(1000, Long.MAX_VALUE, now::get);
+        GameSession used = idle.create(PUZZLE);
+        GameSession unused = idle.create(PUZZLE);
+        now.set(800);
+        idle.get(used.getId());
+        now.set(1500);
+        assert idle.evictIdle() == 1 && idle.size() == 1 && idle.get(unused.getId()) == null;
+        assert idle.get(used.getId()) == used && idle.getEvictedIdle() == 1;
+
+        // room for four games: the fifth evicts the least recently used ones down to 90% of the budget
+        SessionManager budget = new SessionManager(1000, 4 * used.getEstimatedBytes(), now::get);
+        GameSession[] sessions = new GameSession[5];
+        for (int index = 0; index < sessions.length; index++) {
+            now.set(index);
+            sessions[index] = budget.create(PUZZLE);
+        }
+        assert budget.size() == 3 && budget.getEvictedMemory() == 2;
+        assert budget.get(sessions[1].getId()) == null && budget.get(sessions[2].getId()) != null;
+        assert budget.getEstimatedBytes() == 3 * used.getEstimatedBytes();
+    }
+
+    @org.junit.Test
+    public void journalGrowth() {
+        AtomicLong now = new AtomicLong();
+        GameSession first = new SessionManager(1000, Long.MAX_VALUE).create(PUZZLE);
+        long base = first.getEstimatedBytes();
+        SessionManager budget = new SessionManager(1000, 2 * base + 400, now::get);
+        GameSession played = budget.create(PUZZLE);
+        now.set(1);
+        GameSession idle = budget.create(PUZZLE);
+        now.set(2);
+        budget.get(played.getId());
+        for (int move = 0; move < 50; move++) {
+            played.getGame().setValue(0, 0, move % 9 + 1); // every move grows the journal by one delta
+        }
+        budget.recount(played);
+        assert played.getEstimatedBytes() == base + 200 && budget.getEstimatedBytes() == 2 * base + 200;
+
+        for (int move = 0; move < 100; move++) {
+            played.getGame().setValue(0, 0, move % 9 + 1);
+        }
+        budget.recount(played); // over the budget: the idle session goes
+        assert budget.size() == 1 && budget.get(idle.getId()) == null && budget.getEvictedMemory() == 1;
+        assert budget.getEstimatedBytes() == base + 600;
+        assert budget.remove(played.getId()) && budget.getEstimatedBytes() == 0;
+    }
+
+    @org.junit.Test
+    public void journalCap() {
+        AtomicLong now = new AtomicLong();
+        long base = new SessionManager(1000, Long.MAX_VALUE).create(PUZZLE).getEstimatedBytes();
+        long cap = base + 4L * GameSession.MAX_JOURNAL_DELTAS;
+        SessionManager budget = new SessionManager(1000, cap + 2 * base, now::get);
+        GameSession idle = budget.create(PUZZLE);
+        GameSession other = budget.create(PUZZLE);
+        now.set(1);
+        GameSession flooding = budget.create(PUZZLE);
+        for (int move = 0; move < 5 * GameSession.MAX_JOURNAL_DELTAS; move++) {
+            flooding.getGame().setValue(0, 0, move % 9 + 1);
+            budget.recount(flooding);
+        }
+        assert flooding.getEstimatedBytes() <= cap && budget.getEvictedMemory() == 0;
+        assert budget.get(idle.getId()) == idle && budget.get(other.getId()) == other;
+    }
+
+    @org.junit.Test
+    public void server() throws IOException {
+        SudokuServer server = new SudokuServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                new SessionManager(60_000, 1 << 20), new PuzzlePool(1, 1), 10_000);
+        server.start();
+        try {
+            String base = "http://localhost:" + server.getPort() + "/sessions";
+            String line = "020400700700006008083000001002600000050000070000003900900000830300500007001004060";
+            String created = request("POST", base, line, 201);
+            String id = created.substring(created.indexOf("\"id\":\"") + 6, created.indexOf("\",\"size\""));
+            assert created.contains("\"board\":\"" + line.replace('0', '.') + "\"");
+
+            assert request("POST", base + "/" + id + "/move?row=0&col=0&value=2", null, 200)
+                    .contains("\"conflicts\":2");
+            request("POST", base + "/" + id + "/move?row=0&col=1&value=1", null, 400); // initial entry
+            assert request("POST", base + "/" + id + "/solve", null, 200).contains("\"solved\":false");
+            request("POST", base + "/" + id + "/move?row=0&col=0&value=0", null, 200);
+            assert request("POST", base + "/" + id + "/solve", null, 200).contains("\"solved\":true");
+
+            String solved = request("GET", base + "/" + id, null, 200);
+            assert request("POST", base + "/" + id + "/undo", null, 200).contains("\"changed\":true");
+            assert request("POST", base + "/" + id + "/undo", null, 200).contains("\"board\":\"2");
+            request("POST", base + "/" + id + "/undo", null, 200);
+            assert request("POST", base + "/" + id + "/undo", null, 200).contains("\"changed\":false");
+            request("POST", base + "/" + id + "/redo", null, 200);
+            request("POST", base + "/" + id + "/redo", null, 200);
+            assert request("POST", base + "/" + id + "/redo", null, 200).contains("\"changed\":true");
+            assert request("GET", base + "/" + id, null, 200).equals(solved);
+            assert request("POST", base + "/" + id + "/redo", null, 200).contains("\"changed\":false");
+
+            request("POST", base + "?size=10", null, 400);
+            request("POST", base + "?size=0", null, 400);
+            request("POST", base + "?size=36", null, 400);
+
+            request("DELETE", base + "/" + id, null, 204);
+            request("GET", base + "/" + id, null, 404);
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static String request(String method, String url, String body, int status) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        assert connection.getResponseCode() == status : method + " " + url + ": " + connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        if (in != null) {
+            byte[] buffer = new byte[4096];
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                response.write(buffer, 0, read);
+            }
+            in.close();
+        }
+        return new String(response.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,330 @@
+package sudoku.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import sudoku.controller.Move;
+import sudoku.controller.csvIO.CSVFormatException;
+import sudoku.controller.csvIO.LinePuzzleReader;
+import sudoku.game.SolveTask;
+import sudoku.game.SudokuGame;
+import sudoku.game.generator.PuzzlePool;
+import sudoku.game.solver.Grade;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP API for the games of a {@link SessionManager}, for many players on one node and for load tests on localhost.
+ * Every request runs on its own virtual thread where the JVM has them (Java 21 on), and on a cached thread pool
+ * otherwise. Requests to one session are serialized on its lock, requests to different sessions run in parallel.
+ * Games are kept in memory only, nothing is written to gamesaves.
+ * <p>
+ * Boards are sent in the line format of {@link LinePuzzleReader}, '.' for empty cells. Responses are JSON.
+ * <pre>
+ * POST   /sessions[?grade=easy|medium|hard|expert&amp;size=9]   new game, or on the puzzle line in the body;
+ *                                                           size is 4, 9, 16 or 25
+ * GET    /sessions/{id}                                      board and state of a game
+ * POST   /sessions/{id}/move?row=r&amp;col=c&amp;value=v             enter a value, 0 clears the cell
+ * POST   /sessions/{id}/hint                                 enter a hint
+ * POST   /sessions/{id}/solve                                solve by backtracking, within the solve timeout
+ * POST   /sessions/{id}/undo                                 take back the last move, reset or solve
+ * POST   /sessions/{id}/redo                                 make it again
+ * DELETE /sessions/{id}                                      end a game
+ * GET    /stats                                              session and puzzle pool counters
+ * </pre>
+ * Usage: SudokuServer [-p port] [-idle seconds] [-m megabytes] [-solve-timeout millis]
+ */
+public class SudokuServer {
+    private static final Grade DEFAULT_GRADE = Grade.MEDIUM;
+    private static final int DEFAULT_SIZE = 9;
+
+    static {
+        // headers and body are written separately, and with Nagle's algorithm the body waits for the delayed ACK
+        // of the client, 40 ms per request on localhost; must be set before the first server is made
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final SessionManager sessions;
+    private final PuzzlePool puzzles;
+    private final long solveTimeoutMillis;
+    private final ExecutorService executor = newRequestExecutor();
+    private final HttpServer server;
+
+    public SudokuServer(InetSocketAddress address, SessionManager sessions, PuzzlePool puzzles,
+                        long solveTimeoutMillis) throws IOException {
+        this.sessions = sessions;
+        this.puzzles = puzzles;
+        this.solveTimeoutMillis = solveTimeoutMillis;
+        this.server = HttpServer.create(address, 0);
+        server.createContext("/sessions", this::handleSessions);
+        server.createContext("/stats", this::handleStats);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * @return an executor with a new virtual thread per task if the JVM supports them, else a cached thread pool
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            // looked up by reflection, the code is compiled for Java 8
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "sudoku-request-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void start() {
+        sessions.startSweeper();
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        sessions.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleSessions(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            // "", "sessions", id, action
+            String method = exchange.getRequestMethod();
+            if (path.length == 2 && method.equals("POST")) {
+                create(exchange);
+            } else if (path.length == 3 || path.length == 4) {
+                GameSession session = sessions.get(path[2]);
+                if (session == null) {
+                    send(exchange, 404, "{\"error\":\"unknown session\"}");
+                } else if (path.length == 3 && method.equals("GET")) {
+                    send(exchange, 200, state(session, null));
+                } else if (path.length == 3 && method.equals("DELETE")) {
+                    sessions.remove(session.getId());
+                    send(exchange, 204, null);
+                } else if (path.length == 4 && method.equals("POST")) {
+                    act(exchange, session, path[3]);
+                } else {
+                    send(exchange, 405, "{\"error\":\"method not allowed\"}");
+                }
+            } else {
+                send(exchange, 404, "{\"error\":\"not found\"}");
+            }
+        } catch (CSVFormatException e) {
+            send(exchange, 400, "{\"error\":\"" + escape(e.getMessage()) + "\"}");
+        } catch (IllegalArgumentException e) { // bad parameters, including NumberFormatException
+            send(exchange, 400, "{\"error\":\"" + escape(String.valueOf(e.getMessage())) + "\"}");
+        } catch (RuntimeException e) {
+            send(exchange, 500, "{\"error\":\"" + escape(e.toString()) + "\"}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void create(HttpExchange exchange) throws IOException {
+        int[][] puzzle = new LinePuzzleReader(Channels.newChannel(exchange.getRequestBody())).next();
+        if (puzzle == null) {
+            Map<String, String> query = query(exchange);
+            Grade grade = query.containsKey("grade")
+                    ? Grade.valueOf(query.get("grade").toUpperCase()) : DEFAULT_GRADE;
+            int size = query.containsKey("size") ? Integer.parseInt(query.get("size")) : DEFAULT_SIZE;
+            if (size != 4 && size != 9 && size != 16 && size != 25) {
+                // anything else breaks the generator, or takes unbounded time on the request thread
+                throw new IllegalArgumentException("size must be 4, 9, 16 or 25");
+            }
+            puzzle = puzzles.derive(grade, size);
+        }
+        send(exchange, 201, state(sessions.create(puzzle), null));
+    }
+
+    private void act(HttpExchange exchange, GameSession session, String action) throws IOException {
+        SudokuGame game = session.getGame();
+        switch (action) {
+            case "move": {
+                Map<String, String> query = query(exchange);
+                int row = Integer.parseInt(query.get("row"));
+                int col = Integer.parseInt(query.get("col"));
+                int value = Integer.parseInt(query.get("value"));
+                boolean accepted;
+                synchronized (session) {
+                    accepted = game.setValue(row, col, value);
+                }
+                sessions.recount(session);
+                send(exchange, accepted ? 200 : 400, state(session, "\"accepted\":" + accepted));
+                break;
+            }
+            case "hint": {
+                Move hint;
+                synchronized (session) {
+                    hint = game.getHint();
+                }
+                sessions.recount(session);
+                send(exchange, 200, state(session, "\"hint\":" + (hint == null ? "null"
+                        : "{\"row\":" + hint.row + ",\"col\":" + hint.col + ",\"value\":" + hint.value + "}")));
+                break;
+            }
+            case "solve": {
+                // solved on a thread of its own, the solution is loaded under the lock if the board is unchanged
+                Executor delivery = command -> {
+                    synchronized (session) {
+                        command.run();
+                    }
+                };
+                SolveTask task;
+                synchronized (session) {
+                    task = game.bTrackSolveAsync(executor, delivery, solveTimeoutMillis);
+                }
+                try {
+                    task.getResult().get();
+                } catch (InterruptedException e) {
+                    task.cancel();
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted");
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+                sessions.recount(session);
+                send(exchange, 200, state(session, "\"timedOut\":" + task.isTimedOut() + ",\"nodes\":"
+                        + task.getNodes()));
+                break;
+            }
+            case "undo":
+            case "redo": {
+                boolean done;
+                synchronized (session) {
+                    done = action.equals("undo") ? game.undo() : game.redo();
+                }
+                send(exchange, 200, state(session, "\"changed\":" + done));
+                break;
+            }
+            default:
+                send(exchange, 404, "{\"error\":\"unknown action\"}");
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            send(exchange, 200, "{\"sessions\":" + sessions.size() + ",\"estimatedBytes\":"
+                    + sessions.getEstimatedBytes() + ",\"memoryBudget\":" + sessions.getMemoryBudget()
+                    + ",\"created\":" + sessions.getCreated() + ",\"evictedIdle\":" + sessions.getEvictedIdle()
+                    + ",\"evictedMemory\":" + sessions.getEvictedMemory() + ",\"puzzlesDerived\":"
+                    + puzzles.getDerived() + "}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @param extra further JSON members, or null
+     */
+    private static String state(GameSession session, String extra) {
+        SudokuGame game = session.getGame();
+        StringBuilder json = new StringBuilder("{\"id\":\"").append(session.getId()).append('"');
+        synchronized (session) {
+            int size = game.getSize();
+            json.append(",\"size\":").append(size).append(",\"board\":\"");
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    json.append(symbol(game.getValue(row, col)));
+                }
+            }
+            json.append("\",\"filled\":").append(game.getFilledCount())
+                    .append(",\"conflicts\":").append(game.getConflictCount())
+                    .append(",\"solved\":").append(game.isSolved());
+        }
+        if (extra != null) {
+            json.append(',').append(extra);
+        }
+        return json.append('}').toString();
+    }
+
+    private static char symbol(int value) {
+        return value == 0 ? '.' : value <= 9 ? (char) ('0' + value) : (char) ('A' + value - 10);
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                if (equals > 0) {
+                    parameters.put(URLDecoder.decode(parameter.substring(0, equals), "UTF-8"),
+                            URLDecoder.decode(parameter.substring(equals + 1), "UTF-8"));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        long idleSeconds = 30 * 60;
+        long megabytes = 256;
+        long solveTimeoutMillis = 10_000;
+        for (int index = 0; index < args.length; index++) {
+            switch (args[index]) {
+                case "-p":
+                    port = Integer.parseInt(args[++index]);
+                    break;
+                case "-idle":
+                    idleSeconds = Long.parseLong(args[++index]);
+                    break;
+                case "-m":
+                    megabytes = Long.parseLong(args[++index]);
+                    break;
+                case "-solve-timeout":
+                    solveTimeoutMillis = Long.parseLong(args[++index]);
+                    break;
+                default:
+                    System.err.println("unknown option " + args[index]);
+                    System.exit(2);
+            }
+        }
+        SessionManager sessions = new SessionManager(idleSeconds * 1000, megabytes << 20);
+        PuzzlePool puzzles = new PuzzlePool(16, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        SudokuServer server = new SudokuServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                sessions, puzzles, solveTimeoutMillis);
+        server.start();
+        System.err.println("listening on http://localhost:" + server.getPort() + "/sessions");
+    }
+}